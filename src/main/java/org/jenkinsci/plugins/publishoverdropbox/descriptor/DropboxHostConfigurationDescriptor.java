@@ -66,6 +66,44 @@ public class DropboxHostConfigurationDescriptor extends Descriptor<DropboxHostCo
         return FormValidation.validateNonNegativeInteger(value);
     }
 
+    public int getDefaultUploadWorkers() {
+        return DropboxHostConfiguration.DEFAULT_UPLOAD_WORKERS;
+    }
+
+    public FormValidation doCheckUploadWorkers(@QueryParameter final String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    public int getDefaultChunkWorkers() {
+        return DropboxHostConfiguration.DEFAULT_CHUNK_WORKERS;
+    }
+
+    public FormValidation doCheckChunkWorkers(@QueryParameter final String value) {
+        return FormValidation.validatePositiveInteger(value);
+    }
+
+    public int getDefaultMaxChunkSize() {
+        return DropboxHostConfiguration.DEFAULT_MAX_CHUNK_SIZE;
+    }
+
+    public FormValidation doCheckMaxChunkSize(@QueryParameter final String value) {
+        if ("0".equals(value.trim())) return FormValidation.ok();
+        return FormValidation.validateIntegerInRange(value, 4, 148);
+    }
+
+    public int getDefaultReadAheadSize() {
+        return DropboxHostConfiguration.DEFAULT_READ_AHEAD_SIZE;
+    }
+
+    public FormValidation doCheckReadAheadSize(@QueryParameter final String value) {
+        return FormValidation.validateNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckContentStore(@QueryParameter String contentStore) {
+        if (contentStore.isEmpty() || contentStore.matches("/.+")) return FormValidation.ok();
+        else return FormValidation.error(Messages.hostconfig_formvalidation_contentStore());
+    }
+
     public FormValidation doCheckRemoteRootDir(@QueryParameter String remoteRootDir) {
         if (remoteRootDir.matches("/.*")) return FormValidation.ok();
         else return FormValidation.error(Messages.hostconfig_formvalidation_root());
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.BatchEntryResult;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Session;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionFinish;
+import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects closed upload sessions of small files and commits them with one finish_batch call per
+ * {@value DropboxV2#MAX_BATCH_ENTRIES} files. Sessions may be added from several upload threads.
+ */
+class BatchCommitter {
+
+    private final DropboxAdapter dropbox;
+    private final List<SessionFinish> pending = new ArrayList<>();
+
+    BatchCommitter(DropboxAdapter dropbox) {
+        this.dropbox = dropbox;
+    }
+
+    synchronized void add(String path, Session session, long length) {
+        SessionFinish commit = new SessionFinish();
+        commit.cursor.setSessionId(session.getSessionId());
+        commit.cursor.setOffset(length);
+        commit.commit.setPath(path);
+        pending.add(commit);
+    }
+
+    synchronized boolean isFull() {
+        return pending.size() >= DropboxV2.MAX_BATCH_ENTRIES;
+    }
+
+    /**
+     * Commit all pending sessions. All files of a batch fail when Dropbox does not answer with a result per file.
+     *
+     * @return messages of the files that failed to commit, empty when all succeeded
+     */
+    List<String> commit() {
+        List<String> failures = new ArrayList<>();
+        List<SessionFinish> batch;
+        while (!(batch = takeBatch()).isEmpty()) {
+            try {
+                List<BatchEntryResult> results = dropbox.finishBatch(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    BatchEntryResult result = results.get(i);
+                    if (!result.isSuccess()) {
+                        failures.add(Messages.exception_bap_transferFile_named(batch.get(i).commit.getPath(), result.getFailureTag()));
+                    }
+                }
+            } catch (RestException e) {
+                for (SessionFinish commit : batch) {
+                    failures.add(Messages.exception_bap_transferFile_named(commit.commit.getPath(), e.getMessage()));
+                }
+            }
+        }
+
+        return failures;
+    }
+
+    private synchronized List<SessionFinish> takeBatch() {
+        List<SessionFinish> batch = new ArrayList<>(pending.subList(0, Math.min(pending.size(), DropboxV2.MAX_BATCH_ENTRIES)));
+        pending.subList(0, batch.size()).clear();
+        return batch;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.BatchEntryResult;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects paths to delete and deletes them with one delete_batch call per {@value DropboxV2#MAX_BATCH_ENTRIES}
+ * paths. Entries refused because too many writes hit the namespace at once are tried again once all paths are sent.
+ */
+class BatchDeleter {
+
+    private static final String TOO_MANY_WRITE_OPERATIONS = "too_many_write_operations";
+    // Failure of an entry that is already gone
+    private static final String NOT_FOUND = "path_lookup/not_found";
+    private static final int ATTEMPTS = 3;
+    private static final long RETRY_DELAY = 1000;
+
+    private final DropboxAdapter dropbox;
+    private final List<String> pending = new ArrayList<>();
+    private final List<String> retries = new ArrayList<>();
+    private final List<String> failures = new ArrayList<>();
+
+    BatchDeleter(DropboxAdapter dropbox) {
+        this.dropbox = dropbox;
+    }
+
+    /**
+     * @param path absolute path of a file or folder to delete, sent along with the next full batch
+     */
+    void add(String path) {
+        pending.add(path);
+        if (pending.size() >= DropboxV2.MAX_BATCH_ENTRIES) {
+            delete(take(pending), 1);
+        }
+    }
+
+    /**
+     * Deletes the pending paths and retries the entries that met too many writes.
+     *
+     * @return messages of the paths that failed to be deleted, empty when all succeeded
+     */
+    List<String> finish() {
+        if (!pending.isEmpty()) {
+            delete(take(pending), 1);
+        }
+        for (int attempt = 2; attempt <= ATTEMPTS && !retries.isEmpty(); attempt++) {
+            try {
+                Thread.sleep(RETRY_DELAY * (attempt - 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            List<String> paths = take(retries);
+            for (int start = 0; start < paths.size(); start += DropboxV2.MAX_BATCH_ENTRIES) {
+                delete(paths.subList(start, Math.min(paths.size(), start + DropboxV2.MAX_BATCH_ENTRIES)), attempt);
+            }
+        }
+        for (String path : take(retries)) {
+            failures.add(Messages.exception_bap_delete_named(path, TOO_MANY_WRITE_OPERATIONS));
+        }
+
+        return take(failures);
+    }
+
+    private void delete(List<String> batch, int attempt) {
+        try {
+            List<BatchEntryResult> results = dropbox.deleteBatch(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                BatchEntryResult result = results.get(i);
+                String failure = result.getFailureTag();
+                if (result.isSuccess() || NOT_FOUND.equals(failure)) {
+                    continue;
+                }
+                if (TOO_MANY_WRITE_OPERATIONS.equals(failure) && attempt < ATTEMPTS) {
+                    retries.add(batch.get(i));
+                } else {
+                    failures.add(Messages.exception_bap_delete_named(batch.get(i), failure));
+                }
+            }
+        } catch (RestException e) {
+            for (String path : batch) {
+                failures.add(Messages.exception_bap_delete_named(path, e.getMessage()));
+            }
+        }
+    }
+
+    private static List<String> take(List<String> paths) {
+        List<String> taken = new ArrayList<>(paths);
+        paths.clear();
+        return taken;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import jenkins.util.SystemProperties;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Off-heap buffers for staging upload chunks, shared by all uploads in the JVM. Chunks run up to 148 MB, as heap
+ * arrays every one of them is a large allocation for the garbage collector to deal with.
+ * <p>
+ * The pool holds at most its capacity in buffers. When that is in use an upload without buffers waits until another
+ * one returns a buffer, an upload that already holds buffers reuses those instead. Idle buffers of another size are
+ * freed to make room. A single buffer larger than the capacity is only handed out while no other buffer is in use.
+ */
+final class ChunkBufferPool {
+
+    private static final long MEGA_BYTE = 1024 * 1024;
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+    // Streams only read into heap arrays, each reading thread copies through its own array into the direct buffers
+    private static final ThreadLocal<byte[]> TRANSFER_BUFFERS = ThreadLocal.withInitial(() -> new byte[TRANSFER_BUFFER_SIZE]);
+    private static final ChunkBufferPool INSTANCE = new ChunkBufferPool(
+            SystemProperties.getInteger(ChunkBufferPool.class.getName() + ".capacity", 256) * MEGA_BYTE);
+
+    private final long capacity;
+    private final Set<ByteBuffer> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<ByteBuffer> idle = new ArrayList<>();
+    private long inUseBytes;
+    private long idleBytes;
+    private long peakBytes;
+    private long waits;
+
+    ChunkBufferPool(long capacity) {
+        this.capacity = capacity;
+    }
+
+    static ChunkBufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Waits for a buffer. Only to be called by an upload that holds no buffer of this pool, one that does uses
+     * {@link #tryAcquire(int)} instead, as waiting while holding buffers deadlocks once every upload does so.
+     *
+     * @param size exact capacity of the buffer
+     * @return a cleared buffer, to be returned with {@link #release(ByteBuffer)}
+     */
+    synchronized ByteBuffer acquire(int size) throws InterruptedException {
+        boolean waited = false;
+        while (true) {
+            ByteBuffer buffer = take(size);
+            if (buffer != null) {
+                return buffer;
+            }
+            if (!waited) {
+                waited = true;
+                waits++;
+            }
+            wait();
+        }
+    }
+
+    /**
+     * @param size exact capacity of the buffer
+     * @return a cleared buffer, to be returned with {@link #release(ByteBuffer)}, null when the pool is exhausted
+     */
+    synchronized ByteBuffer tryAcquire(int size) {
+        return take(size);
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer must not be used afterwards, returning it more than once has no effect.
+     */
+    synchronized void release(ByteBuffer buffer) {
+        if (inUse.remove(buffer)) {
+            inUseBytes -= buffer.capacity();
+            idle.add(buffer);
+            idleBytes += buffer.capacity();
+            notifyAll();
+        }
+    }
+
+    private ByteBuffer take(int size) {
+        ByteBuffer buffer = takeIdle(size);
+        if (buffer == null) {
+            if (inUseBytes + idleBytes + size > capacity) {
+                // Idle buffers of other sizes make room for the one needed now
+                freeIdle();
+            }
+            if (inUseBytes + size <= capacity || inUseBytes == 0) {
+                buffer = ByteBuffer.allocateDirect(size);
+            }
+        }
+        if (buffer != null) {
+            inUse.add(buffer);
+            inUseBytes += size;
+            peakBytes = Math.max(peakBytes, inUseBytes);
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    private ByteBuffer takeIdle(int size) {
+        for (Iterator<ByteBuffer> iterator = idle.iterator(); iterator.hasNext(); ) {
+            ByteBuffer buffer = iterator.next();
+            if (buffer.capacity() == size) {
+                iterator.remove();
+                idleBytes -= size;
+                return buffer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Frees all idle buffers.
+     */
+    private void freeIdle() {
+        for (ByteBuffer buffer : idle) {
+            DirectBuffers.free(buffer);
+        }
+        idle.clear();
+        idleBytes = 0;
+    }
+
+    synchronized long getInUseBytes() {
+        return inUseBytes;
+    }
+
+    synchronized long getIdleBytes() {
+        return idleBytes;
+    }
+
+    synchronized long getPeakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * @return number of times an upload had to wait for a buffer
+     */
+    synchronized long getWaits() {
+        return waits;
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Reads exactly {@code size} bytes of the content into the buffer, from its start.
+     */
+    static void fill(ByteBuffer buffer, InputStream content, int size) throws IOException {
+        buffer.clear();
+        byte[] transfer = TRANSFER_BUFFERS.get();
+        while (buffer.position() < size) {
+            int read = content.read(transfer, 0, Math.min(transfer.length, size - buffer.position()));
+            if (read == -1) {
+                throw new EOFException();
+            }
+            buffer.put(transfer, 0, read);
+        }
+        buffer.flip();
+    }
+}
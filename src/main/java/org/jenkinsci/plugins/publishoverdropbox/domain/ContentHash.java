@@ -0,0 +1,170 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the content hash Dropbox reports in the {@code content_hash} of a file: the SHA-256 of the concatenated
+ * SHA-256 hashes of each 4 MB block of the content, as lower case hex.
+ */
+public final class ContentHash {
+
+    static final int BLOCK_SIZE = 4 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static ExecutorService blockExecutorService;
+
+    private ContentHash() {
+    }
+
+    /**
+     * @param content stream to hash, read until its end but not closed
+     * @return hex encoded content hash
+     */
+    public static String hash(InputStream content) throws IOException {
+        MessageDigest overall = sha256();
+        MessageDigest block = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int inBlock = 0;
+        int read;
+        while ((read = content.read(buffer, 0, Math.min(buffer.length, BLOCK_SIZE - inBlock))) != -1) {
+            block.update(buffer, 0, read);
+            inBlock += read;
+            if (inBlock == BLOCK_SIZE) {
+                overall.update(block.digest());
+                inBlock = 0;
+            }
+        }
+        if (inBlock > 0) {
+            overall.update(block.digest());
+        }
+
+        return toHex(overall.digest());
+    }
+
+    /**
+     * Hashes the blocks of a local file in parallel, one block per available processor at a time.
+     *
+     * @param file file to hash
+     * @return hex encoded content hash
+     */
+    public static String hash(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size <= BLOCK_SIZE) {
+                return hash(Channels.newInputStream(channel));
+            }
+            List<Future<byte[]>> blocks = new ArrayList<>();
+            for (long position = 0; position < size; position += BLOCK_SIZE) {
+                final long blockStart = position;
+                final long blockEnd = Math.min(size, position + BLOCK_SIZE);
+                blocks.add(getBlockExecutorService().submit(() -> hashBlock(file, channel, blockStart, blockEnd)));
+            }
+            MessageDigest overall = sha256();
+            try {
+                for (Future<byte[]> block : blocks) {
+                    overall.update(block.get());
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } finally {
+                for (Future<byte[]> block : blocks) {
+                    block.cancel(true);
+                }
+            }
+
+            return toHex(overall.digest());
+        }
+    }
+
+    private static byte[] hashBlock(File file, FileChannel channel, long start, long end) throws IOException {
+        MessageDigest block = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = start;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE, end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException(Messages.exception_hash_changed(file.getName()));
+            }
+            buffer.flip();
+            block.update(buffer);
+            position += read;
+        }
+        return block.digest();
+    }
+
+    private static synchronized ExecutorService getBlockExecutorService() {
+        if (blockExecutorService == null) {
+            blockExecutorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "org.jenkinsci.plugins.publishoverdropbox.domain.ContentHash"));
+        }
+        return blockExecutorService;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import com.google.common.annotations.VisibleForTesting;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content hashes of the files on a node, stored in a file under the root of the node. A file is only read again
+ * when its size or modification time changed since it was hashed.
+ * <p>
+ * The store is a binary list of canonical path, size, modification time and the 32 bytes of the hash, most recently
+ * used first. It is loaded once per JVM of the node and shared by all builds on that node. Saving drops the files
+ * that no longer exist and the least recently used beyond the maximum number of entries.
+ */
+public final class ContentHashCache {
+
+    private static final int MAGIC = 0x44424843;
+    private static final int VERSION = 1;
+    private static final int HASH_BYTES = 32;
+    // Files changed within this window may change again within the resolution of their modification time
+    private static final long RACY_WINDOW = 2000;
+    private static final int MAX_ENTRIES = SystemProperties.getInteger(ContentHashCache.class.getName() + ".maxEntries", 100000);
+    private static final Map<File, ContentHashCache> CACHES = new HashMap<>();
+
+    private final File store;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Ticks on every use of an entry, orders the entries from least to most recently used
+    private final AtomicLong clock = new AtomicLong();
+    private volatile boolean dirty;
+
+    ContentHashCache(File store) {
+        this(store, MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries number of entries kept when saving
+     */
+    ContentHashCache(File store, int maxEntries) {
+        this.store = store;
+        this.maxEntries = maxEntries;
+        load();
+    }
+
+    static synchronized ContentHashCache forStore(File store) {
+        return CACHES.computeIfAbsent(store.getAbsoluteFile(), ContentHashCache::new);
+    }
+
+    /**
+     * @param file file on this node
+     * @return the content hash of the file, from the cache when size and modification time did not change
+     */
+    String hash(File file) throws IOException {
+        String path = file.getCanonicalPath();
+        long size = file.length();
+        long modified = file.lastModified();
+        Entry entry = entries.get(path);
+        if (entry != null && entry.size == size && entry.modified == modified) {
+            entry.used = clock.incrementAndGet();
+            return entry.hash;
+        }
+        String hash = ContentHash.hash(file);
+        boolean stable = file.length() == size && file.lastModified() == modified;
+        if (stable && System.currentTimeMillis() - modified > RACY_WINDOW) {
+            entries.put(path, new Entry(size, modified, hash, clock.incrementAndGet()));
+            dirty = true;
+        }
+        return hash;
+    }
+
+    /**
+     * Writes the cache when it changed, dropping the entries of files that no longer exist and the least recently used
+     * beyond the maximum number of entries.
+     */
+    synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        // Cleared before writing so changes made while writing are saved the next time, set again when writing fails
+        dirty = false;
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            dirty = true;
+            throw e;
+        }
+    }
+
+    private void write() throws IOException {
+        File folder = store.getParentFile();
+        if (folder != null && !folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException(Messages.exception_hash_cache(store));
+        }
+        List<Map.Entry<String, Entry>> kept = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Entry> item : entries.entrySet()) {
+            if (new File(item.getKey()).isFile()) {
+                kept.add(item);
+            } else {
+                entries.remove(item.getKey());
+            }
+        }
+        kept.sort((a, b) -> Long.compare(b.getValue().used, a.getValue().used));
+        while (kept.size() > maxEntries) {
+            entries.remove(kept.remove(kept.size() - 1).getKey());
+        }
+        File temp = new File(store.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                for (Map.Entry<String, Entry> item : kept) {
+                    Entry entry = item.getValue();
+                    out.writeBoolean(true);
+                    out.writeUTF(item.getKey());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modified);
+                    out.write(fromHex(entry.hash));
+                }
+                out.writeBoolean(false);
+            }
+            Files.move(temp.toPath(), store.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    @VisibleForTesting
+    int size() {
+        return entries.size();
+    }
+
+    private void load() {
+        if (!store.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(store)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            byte[] hash = new byte[HASH_BYTES];
+            // Stored most recently used first, so earlier entries count as used later
+            long used = 0;
+            while (in.readBoolean()) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                in.readFully(hash);
+                entries.put(path, new Entry(size, modified, ContentHash.toHex(hash), --used));
+            }
+        } catch (IOException e) {
+            // A damaged store only costs hashing the files again
+            entries.clear();
+        }
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[HASH_BYTES];
+        for (int i = 0; i < HASH_BYTES; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        private final String hash;
+        private volatile long used;
+
+        private Entry(long size, long modified, String hash, long used) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.used = used;
+        }
+    }
+
+    /**
+     * Computes the content hash of a file on the node that holds it, using the cache of that node when known.
+     */
+    public static final class Lookup extends MasterToSlaveFileCallable<String> {
+        private static final long serialVersionUID = 1L;
+        private final String store;
+
+        /**
+         * @param store path of the cache on the node, null to hash without a cache
+         */
+        public Lookup(String store) {
+            this.store = store;
+        }
+
+        @Override
+        public String invoke(File file, VirtualChannel channel) throws IOException {
+            if (store == null) {
+                return ContentHash.hash(file);
+            }
+            return forStore(new File(store)).hash(file);
+        }
+    }
+
+    /**
+     * Writes the cache of the node, invoked on the store file.
+     */
+    public static final class Save extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Void invoke(File store, VirtualChannel channel) throws IOException {
+            forStore(store).save();
+            return null;
+        }
+    }
+}
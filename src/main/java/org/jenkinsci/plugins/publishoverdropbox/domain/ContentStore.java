@@ -0,0 +1,258 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.BatchEntryResult;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.ErrorResponse;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FileMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.RelocationPath;
+import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A Dropbox folder of blobs named by their content hash. Files whose content is already in the store are copied on
+ * the server instead of uploaded, and uploaded files are copied into the store for later builds.
+ * <p>
+ * Copies are collected and made with {@value DropboxV2#MAX_BATCH_ENTRIES} entries per batch when the transfers end,
+ * after the uploaded files are committed. New blobs are stored before the files are placed, so a file that occurs
+ * twice in one transfer is uploaded once. A copy never overwrites, so a file that is already at the destination is
+ * deleted and the copy is made again.
+ */
+class ContentStore {
+
+    // Failure of a copy onto an existing file, nested in the relocation error of a batch entry
+    private static final String DESTINATION_EXISTS = "to/conflict/file";
+
+    private final DropboxAdapter dropbox;
+    private final String folder;
+    private Set<String> blobs;
+    private final List<RelocationPath> captures = new ArrayList<>();
+    private final List<Placement> placements = new ArrayList<>();
+    private int placedFiles;
+    private long placedBytes;
+
+    ContentStore(DropboxAdapter dropbox, String folder) {
+        this.dropbox = dropbox;
+        this.folder = folder;
+    }
+
+    String getFolder() {
+        return folder;
+    }
+
+    /**
+     * Lists the blobs of the store, once per store.
+     */
+    synchronized void list() throws RestException {
+        if (blobs == null) {
+            Set<String> listed = new HashSet<>();
+            for (FileMetadata blob : dropbox.listFiles(folder)) {
+                listed.add(blob.getName());
+            }
+            blobs = listed;
+        }
+    }
+
+    /**
+     * Queue a copy from the store when the content is present.
+     *
+     * @param hash     content hash of the file
+     * @param path     absolute destination of the file
+     * @param length   size of the file
+     * @param fallback upload of the file, used when the copy fails
+     * @return true when a copy is queued and the file needs no upload
+     */
+    synchronized boolean place(String hash, String path, long length, ParallelUploader.Task fallback) {
+        if (blobs == null || !blobs.contains(hash)) {
+            return false;
+        }
+        placements.add(new Placement(new RelocationPath(blobPath(hash), path), length, fallback));
+        return true;
+    }
+
+    /**
+     * Queue a copy of an uploaded file into the store.
+     *
+     * @param hash content hash of the file
+     * @param path absolute path of the uploaded file
+     */
+    synchronized void capture(String hash, String path) {
+        if (blobs != null && blobs.add(hash)) {
+            captures.add(new RelocationPath(path, blobPath(hash)));
+        }
+    }
+
+    /**
+     * Make the queued copies, files that could not be copied from the store are uploaded instead. The placed files
+     * are counted per commit.
+     *
+     * @return messages of the files that failed to be copied and uploaded, empty when all succeeded
+     */
+    List<String> commit() {
+        resetCounts();
+        List<RelocationPath> stored = take(captures);
+        for (int i = 0; i < stored.size(); i += DropboxV2.MAX_BATCH_ENTRIES) {
+            try {
+                copy(stored.subList(i, Math.min(stored.size(), i + DropboxV2.MAX_BATCH_ENTRIES)));
+            } catch (RestException e) {
+                // The store misses these blobs, their files are uploaded again next time
+            }
+        }
+
+        List<String> failures = new ArrayList<>();
+        List<Placement> placed = take(placements);
+        for (int i = 0; i < placed.size(); i += DropboxV2.MAX_BATCH_ENTRIES) {
+            List<Placement> batch = placed.subList(i, Math.min(placed.size(), i + DropboxV2.MAX_BATCH_ENTRIES));
+            List<Placement> existing = place(batch, failures, true);
+            if (!existing.isEmpty()) {
+                BatchDeleter deleter = new BatchDeleter(dropbox);
+                for (Placement placement : existing) {
+                    deleter.add(placement.copy.getToPath());
+                }
+                // A destination that is still there fails the copy again and is uploaded
+                deleter.finish();
+                place(existing, failures, false);
+            }
+        }
+
+        return failures;
+    }
+
+    /**
+     * Copies the files into place, files that could not be copied are uploaded instead.
+     *
+     * @param keepExisting whether to leave the files whose destination already exists for a later attempt
+     * @return the placements of which the destination already exists, when kept
+     */
+    private List<Placement> place(List<Placement> batch, List<String> failures, boolean keepExisting) {
+        List<RelocationPath> copies = new ArrayList<>();
+        for (Placement placement : batch) {
+            copies.add(placement.copy);
+        }
+        List<BatchEntryResult> results;
+        try {
+            results = copy(copies);
+        } catch (RestException e) {
+            results = Collections.emptyList();
+        }
+        List<Placement> existing = new ArrayList<>();
+        for (int j = 0; j < batch.size(); j++) {
+            Placement placement = batch.get(j);
+            BatchEntryResult result = j < results.size() ? results.get(j) : null;
+            if (result != null && result.isSuccess()) {
+                placed(placement.length);
+            } else if (keepExisting && result != null && isDestinationExisting(result.getFailureTag())) {
+                existing.add(placement);
+            } else {
+                upload(placement, failures);
+            }
+        }
+        return existing;
+    }
+
+    synchronized int getPlacedFiles() {
+        return placedFiles;
+    }
+
+    synchronized long getPlacedBytes() {
+        return placedBytes;
+    }
+
+    /**
+     * A single copy skips the batch job, its error is turned into the failure of the entry.
+     */
+    private List<BatchEntryResult> copy(List<RelocationPath> copies) throws RestException {
+        if (copies.size() == 1) {
+            RelocationPath copy = copies.get(0);
+            try {
+                dropbox.copyFile(copy.getFromPath(), copy.getToPath());
+            } catch (RestException e) {
+                BatchEntryResult failure = new BatchEntryResult();
+                failure.setTag("failure");
+                failure.setFailureTag(findErrorSummary(e));
+                return Collections.singletonList(failure);
+            }
+            return Collections.singletonList(BatchEntryResult.success());
+        }
+        return dropbox.copyBatch(copies);
+    }
+
+    private static String findErrorSummary(RestException e) {
+        ResponseException response = ResponseException.find(e);
+        if (response != null && response.getErrorResponse() instanceof ErrorResponse) {
+            return ((ErrorResponse) response.getErrorResponse()).getErrorSummary();
+        }
+        return null;
+    }
+
+    private static boolean isDestinationExisting(String failureTag) {
+        return failureTag != null && ("/" + failureTag).contains("/" + DESTINATION_EXISTS);
+    }
+
+    private static void upload(Placement placement, List<String> failures) {
+        try {
+            placement.fallback.upload();
+        } catch (Exception e) {
+            failures.add(Messages.exception_bap_transferFile_named(placement.copy.getToPath(), e.getMessage()));
+        }
+    }
+
+    private synchronized void resetCounts() {
+        placedFiles = 0;
+        placedBytes = 0;
+    }
+
+    private synchronized void placed(long length) {
+        placedFiles++;
+        placedBytes += length;
+    }
+
+    private synchronized <T> List<T> take(List<T> pending) {
+        List<T> taken = new ArrayList<>(pending);
+        pending.clear();
+        return taken;
+    }
+
+    private String blobPath(String hash) {
+        return folder + "/" + hash;
+    }
+
+    private static final class Placement {
+        private final RelocationPath copy;
+        private final long length;
+        private final ParallelUploader.Task fallback;
+
+        private Placement(RelocationPath copy, long length, ParallelUploader.Task fallback) {
+            this.copy = copy;
+            this.length = length;
+            this.fallback = fallback;
+        }
+    }
+}
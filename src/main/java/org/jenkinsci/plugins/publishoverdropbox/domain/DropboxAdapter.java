@@ -23,16 +23,46 @@
  */
 package org.jenkinsci.plugins.publishoverdropbox.domain;
 
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.BatchEntryResult;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FileMetadata;
 import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderMetadata;
 import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Session;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.RelocationPath;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionFinish;
 
+import java.io.File;
 import java.io.InputStream;
+import java.util.List;
 
 public interface DropboxAdapter {
     void setTimeout(int timeout);
 
     int getTimeout();
 
+    void setChunkWorkers(int chunkWorkers);
+
+    int getChunkWorkers();
+
+    void setUploadTuning(UploadTuning uploadTuning);
+
+    /**
+     * @param readAheadSize bytes of chunks that may be read ahead per file while the current chunk is sent
+     */
+    void setReadAheadSize(long readAheadSize);
+
+    void setImplicitFolders(boolean implicitFolders);
+
+    boolean isImplicitFolders();
+
+    void setReplaceOnClean(boolean replaceOnClean);
+
+    boolean isReplaceOnClean();
+
+    void setChunkTimingListener(ChunkTimingListener listener);
+
+    UploadTuning getUploadTuning();
+
     boolean isConnected();
 
     boolean connect() throws RestException;
@@ -45,7 +75,40 @@ public interface DropboxAdapter {
 
     void storeFile(String name, InputStream content, long length) throws RestException;
 
-    void cleanWorkingFolder() throws RestException;
+    void storeFile(String name, File file, long length) throws RestException;
+
+    long getChunkSize();
+
+    long getSingleUploadLimit();
+
+    Session storeSessionContent(String name, InputStream content, long length) throws RestException;
+
+    List<BatchEntryResult> finishBatch(List<SessionFinish> commits) throws RestException;
+
+    void copyFile(String fromPath, String toPath) throws RestException;
+
+    List<BatchEntryResult> copyBatch(List<RelocationPath> copies) throws RestException;
+
+    List<BatchEntryResult> createFolderBatch(List<String> paths) throws RestException;
+
+    List<String> cleanWorkingFolder() throws RestException;
+
+    List<String> pruneFolder(String path, int pruneRootDays) throws RestException;
+
+    List<BatchEntryResult> deleteBatch(List<String> paths) throws RestException;
+
+    List<FileMetadata> listFiles(String path) throws RestException;
+
+    RemoteTree listTree(String path) throws RestException;
+
+    FolderListing listFolder(String path, boolean recursive, int limit);
+
+    String createAbsolutePath(String path);
 
-    void pruneFolder(String path, int pruneRootDays) throws RestException;
+    /**
+     * Receives the time an upload in chunks spent waiting for its content and sending it.
+     */
+    interface ChunkTimingListener {
+        void uploaded(String name, long length, long diskNanos, long networkNanos);
+    }
 }
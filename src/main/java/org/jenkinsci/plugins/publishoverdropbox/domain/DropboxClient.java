@@ -25,29 +25,48 @@
 package org.jenkinsci.plugins.publishoverdropbox.domain;
 
 import hudson.FilePath;
+import hudson.model.Computer;
+import hudson.model.Node;
 import jenkins.plugins.publish_over.BPBuildInfo;
 import jenkins.plugins.publish_over.BPDefaultClient;
 import jenkins.plugins.publish_over.BapPublisherException;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderMetadata;
 import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Session;
 import org.jenkinsci.plugins.publishoverdropbox.impl.DropboxTransfer;
 import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 public class DropboxClient extends BPDefaultClient<DropboxTransfer> {
 
     private static final Log LOG = LogFactory.getLog(DropboxClient.class);
+    private static final long MEGA_BYTE = 1024 * 1024;
+    private static final String HASH_CACHE = "publish-over-dropbox/content-hashes.bin";
     private BPBuildInfo buildInfo;
     private final DropboxAdapter dropbox;
     private String token;
+    private ParallelUploader uploader;
+    private BatchCommitter batch;
+    private boolean skipUnchanged;
+    private UnchangedFiles unchanged;
+    private ContentStore contentStore;
+    private FilePath hashCache;
+    private ImplicitFolders implicitFolders;
 
     public DropboxClient(final DropboxV2 client, final BPBuildInfo buildInfo) {
         this.dropbox = client;
         this.buildInfo = buildInfo;
+        this.dropbox.setChunkTimingListener(this::printChunkTiming);
     }
 
     public BPBuildInfo getBuildInfo() {
@@ -61,6 +80,9 @@ public class DropboxClient extends BPDefaultClient<DropboxTransfer> {
     @Override
     public boolean changeDirectory(final String directory) {
         try {
+            if (implicitFolders != null && StringUtils.isNotEmpty(directory)) {
+                implicitFolders.enter(dropbox.createAbsolutePath(directory));
+            }
             return dropbox.changeWorkingDirectory(directory);
         } catch (RestException e) {
             throw new BapPublisherException(Messages.exception_bap_changeDirectory(e.getMessage()), e);
@@ -69,6 +91,10 @@ public class DropboxClient extends BPDefaultClient<DropboxTransfer> {
 
     @Override
     public boolean makeDirectory(final String path) {
+        if (implicitFolders != null) {
+            implicitFolders.enter(dropbox.createAbsolutePath(path));
+            return true;
+        }
         try {
             FolderMetadata folder = dropbox.makeDirectory(path);
             return folder != null;
@@ -79,11 +105,19 @@ public class DropboxClient extends BPDefaultClient<DropboxTransfer> {
 
     @Override
     public void deleteTree() {
+        if (unchanged != null) {
+            unchanged.clear(getWorkingFolder());
+        }
+        List<String> failures;
         try {
-            dropbox.cleanWorkingFolder();
+            failures = dropbox.cleanWorkingFolder();
         } catch (RestException e) {
             throw new BapPublisherException(Messages.exception_bap_deleteTree(e.getMessage()), e);
         }
+        printFailures(failures);
+        if (!failures.isEmpty()) {
+            throw new BapPublisherException(Messages.exception_bap_deleteTree_entries(failures.size(), failures.get(0)));
+        }
     }
 
     @Override
@@ -92,18 +126,73 @@ public class DropboxClient extends BPDefaultClient<DropboxTransfer> {
             throw new BapPublisherException(Messages.exception_noSourceFiles());
         }
         if (transfer.isRemoteDirectorySDF() && transfer.isPruneRoot()) {
+            List<String> failures;
             try {
-                dropbox.pruneFolder(getAbsoluteRemoteRoot(), transfer.getPruneRootDays());
+                failures = dropbox.pruneFolder(getAbsoluteRemoteRoot(), transfer.getPruneRootDays());
             } catch (RestException e) {
                 throw new BapPublisherException(Messages.exception_bap_pruneFolder(e.getMessage()), e);
             }
+            printFailures(failures);
+            if (!failures.isEmpty()) {
+                throw new BapPublisherException(Messages.exception_bap_pruneFolder_entries(failures.size(), failures.get(0)));
+            }
+        }
+        if (skipUnchanged || contentStore != null) {
+            hashCache = resolveHashCache();
+        }
+        try {
+            if (skipUnchanged) {
+                // Listed once the transfer entered the folders it publishes to
+                unchanged = new UnchangedFiles();
+            }
+            if (contentStore != null) {
+                contentStore.list();
+            }
+        } catch (RestException e) {
+            throw new BapPublisherException(Messages.exception_bap_beginTransfers(e.getMessage()), e);
+        }
+        printUploadTuning();
+    }
+
+    /**
+     * Lists the remote files for the unchanged check from the folder publish-over changed into for the file, unless
+     * the folder or one above it was listed already. The listing never goes above the folder entered.
+     */
+    private void listUnchanged(final String folder) throws RestException {
+        if (!unchanged.isListed(folder)) {
+            unchanged.add(folder, dropbox.listTree(folder.isEmpty() ? "/" : folder));
         }
     }
 
+    /**
+     * @return lower case absolute path of the working folder, empty for the root
+     */
+    private String getWorkingFolder() {
+        return StringUtils.removeEnd(dropbox.createAbsolutePath(""), "/").toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public void transferFile(final DropboxTransfer transfer, final FilePath filePath, final InputStream content) {
         try {
-            dropbox.storeFile(filePath.getName(), content, filePath.length());
+            // The working folder moves on while an upload is queued, so fix the destination now
+            final String path = dropbox.createAbsolutePath(filePath.getName());
+            final long length = filePath.length();
+            if (unchanged != null) {
+                listUnchanged(getWorkingFolder());
+            }
+            if (implicitFolders != null) {
+                implicitFolders.write(path);
+            }
+            if (uploader == null) {
+                transfer(path, length, filePath, content);
+            } else {
+                // The worker opens the file itself, the stream publish-over opened would stay open until it is done
+                content.close();
+                uploader.submit(path, () -> transfer(path, length, filePath, null));
+            }
+            if (batch != null && batch.isFull()) {
+                reportFailures(batch.commit());
+            }
         } catch (RestException e) {
             throw new BapPublisherException(Messages.exception_bap_transferFile(e.getMessage()), e);
         } catch (IOException e) {
@@ -113,6 +202,169 @@ public class DropboxClient extends BPDefaultClient<DropboxTransfer> {
         }
     }
 
+    /**
+     * Skip, copy from the content store or upload a single file.
+     *
+     * @param content the opened content of the file, null to open it when needed
+     */
+    private void transfer(final String path, final long length, final FilePath filePath, final InputStream content) throws RestException, IOException, InterruptedException {
+        String hash = null;
+        if (unchanged != null && unchanged.isCandidate(path, length)) {
+            hash = hash(filePath);
+            if (unchanged.isUnchanged(path, length, hash)) {
+                return;
+            }
+        }
+        if (contentStore != null) {
+            if (hash == null) {
+                hash = hash(filePath);
+            }
+            if (contentStore.place(hash, path, length, () -> upload(path, length, filePath))) {
+                return;
+            }
+        }
+        if (batch == null || length > dropbox.getSingleUploadLimit()) {
+            upload(path, length, filePath, content);
+        } else if (content != null) {
+            storeSession(path, content, length);
+        } else {
+            try (InputStream stream = filePath.read()) {
+                storeSession(path, stream, length);
+            }
+        }
+        if (contentStore != null) {
+            contentStore.capture(hash, path);
+        }
+    }
+
+    private void upload(final String path, final long length, final FilePath filePath) throws RestException, IOException, InterruptedException {
+        upload(path, length, filePath, null);
+    }
+
+    /**
+     * Files of this node are read straight from disk, files of agents through the remoting stream.
+     *
+     * @param content the opened content of the file, null to open it when needed
+     */
+    private void upload(final String path, final long length, final FilePath filePath, final InputStream content) throws RestException, IOException, InterruptedException {
+        if (!filePath.isRemote()) {
+            dropbox.storeFile(path, new File(filePath.getRemote()), length);
+        } else if (content != null) {
+            dropbox.storeFile(path, content, length);
+        } else {
+            try (InputStream stream = filePath.read()) {
+                dropbox.storeFile(path, stream, length);
+            }
+        }
+    }
+
+    private void storeSession(final String path, final InputStream content, final long length) throws RestException {
+        Session session = dropbox.storeSessionContent(path, content, length);
+        batch.add(path, session, length);
+    }
+
+    /**
+     * The file is hashed on its own node, where the hash cache of the node spares reading unchanged files.
+     */
+    private String hash(final FilePath filePath) throws IOException, InterruptedException {
+        String store = hashCache == null ? null : hashCache.getRemote();
+        return filePath.act(new ContentHashCache.Lookup(store));
+    }
+
+    /**
+     * @return location of the content hash cache under the root of the node holding the files, null when unknown
+     */
+    private FilePath resolveHashCache() {
+        FilePath baseDirectory = buildInfo.getBaseDirectory();
+        Computer computer = baseDirectory == null ? null : baseDirectory.toComputer();
+        Node node = computer == null ? null : computer.getNode();
+        FilePath root = node == null ? null : node.getRootPath();
+        return root == null ? null : root.child(HASH_CACHE);
+    }
+
+    private void saveHashCache() {
+        try {
+            hashCache.act(new ContentHashCache.Save());
+        } catch (IOException e) {
+            LOG.warn(Messages.exception_hash_cache_save(hashCache.getRemote()), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void endTransfers(final DropboxTransfer transfer) {
+        List<String> failures = new ArrayList<>();
+        if (uploader != null) {
+            failures.addAll(uploader.awaitCompletion());
+        }
+        if (batch != null) {
+            failures.addAll(batch.commit());
+        }
+        if (contentStore != null) {
+            failures.addAll(contentStore.commit());
+            buildInfo.println(Messages.console_contentStore_copied(contentStore.getPlacedFiles(),
+                    contentStore.getPlacedBytes(), contentStore.getFolder()));
+        }
+        if (implicitFolders != null) {
+            failures.addAll(implicitFolders.createEmpty());
+        }
+        printUploadTuning();
+        printConnectionPool();
+        printBufferPool();
+        if (unchanged != null) {
+            buildInfo.println(Messages.console_unchanged_skipped(unchanged.getSkippedFiles(), unchanged.getSkippedBytes()));
+            unchanged = null;
+        }
+        if (hashCache != null) {
+            saveHashCache();
+            hashCache = null;
+        }
+        reportFailures(failures);
+    }
+
+    private void printUploadTuning() {
+        UploadTuning tuning = dropbox.getUploadTuning();
+        if (tuning != null) {
+            buildInfo.printIfVerbose(Messages.console_upload_tuning(tuning.getSingleUploadLimit() / MEGA_BYTE,
+                    tuning.getChunkSize() / MEGA_BYTE, tuning.getThroughput() / 1024, tuning.getLatency()));
+        }
+    }
+
+    private void printChunkTiming(String name, long length, long diskNanos, long networkNanos) {
+        buildInfo.printIfVerbose(Messages.console_upload_timing(name, length / MEGA_BYTE,
+                TimeUnit.NANOSECONDS.toMillis(diskNanos), TimeUnit.NANOSECONDS.toMillis(networkNanos)));
+    }
+
+    private void printConnectionPool() {
+        if (PooledHttpTransport.isStarted()) {
+            PooledHttpTransport pool = PooledHttpTransport.getInstance();
+            buildInfo.printIfVerbose(Messages.console_http_pool(pool.getPoolHits(), pool.getPoolMisses()));
+        }
+    }
+
+    private void printBufferPool() {
+        ChunkBufferPool pool = ChunkBufferPool.getInstance();
+        if (pool.getPeakBytes() > 0) {
+            buildInfo.printIfVerbose(Messages.console_buffer_pool(pool.getInUseBytes() / MEGA_BYTE,
+                    pool.getIdleBytes() / MEGA_BYTE, pool.getCapacity() / MEGA_BYTE, pool.getPeakBytes() / MEGA_BYTE,
+                    pool.getWaits()));
+        }
+    }
+
+    private void reportFailures(List<String> failures) {
+        printFailures(failures);
+        if (!failures.isEmpty()) {
+            throw new BapPublisherException(Messages.exception_bap_transferFiles(failures.size(), failures.get(0)));
+        }
+    }
+
+    private void printFailures(List<String> failures) {
+        for (String failure : failures) {
+            buildInfo.println(failure);
+        }
+    }
+
     public boolean connect() {
         try {
             return dropbox.isConnected() || dropbox.connect();
@@ -123,6 +375,9 @@ public class DropboxClient extends BPDefaultClient<DropboxTransfer> {
 
     @Override
     public void disconnect() {
+        if (uploader != null) {
+            uploader.shutdown();
+        }
         if ((dropbox != null) && dropbox.isConnected()) {
             dropbox.disconnect();
         }
@@ -148,4 +403,100 @@ public class DropboxClient extends BPDefaultClient<DropboxTransfer> {
     public int getTimeout() {
         return dropbox.getTimeout();
     }
+
+    /**
+     * @param workers number of files uploaded at the same time, 1 or less uploads sequentially
+     */
+    public void setUploadWorkers(int workers) {
+        if (uploader != null) {
+            uploader.shutdown();
+        }
+        uploader = workers > 1 ? new ParallelUploader(workers) : null;
+    }
+
+    public int getUploadWorkers() {
+        return uploader == null ? 1 : uploader.getWorkers();
+    }
+
+    /**
+     * @param batchCommit commit small files together with one finish_batch call per batch
+     */
+    public void setBatchCommit(boolean batchCommit) {
+        batch = batchCommit ? new BatchCommitter(dropbox) : null;
+    }
+
+    public boolean isBatchCommit() {
+        return batch != null;
+    }
+
+    /**
+     * @param implicit skip looking up and creating folders before writing files in them, only create empty folders
+     */
+    public void setImplicitFolders(boolean implicit) {
+        dropbox.setImplicitFolders(implicit);
+        implicitFolders = implicit ? new ImplicitFolders(dropbox) : null;
+    }
+
+    public boolean isImplicitFolders() {
+        return implicitFolders != null;
+    }
+
+    /**
+     * @param replaceOnClean clean the remote directory by deleting it as a whole and creating it again
+     */
+    public void setReplaceOnClean(boolean replaceOnClean) {
+        dropbox.setReplaceOnClean(replaceOnClean);
+    }
+
+    public boolean isReplaceOnClean() {
+        return dropbox.isReplaceOnClean();
+    }
+
+    public void setChunkWorkers(int chunkWorkers) {
+        dropbox.setChunkWorkers(chunkWorkers);
+    }
+
+    public int getChunkWorkers() {
+        return dropbox.getChunkWorkers();
+    }
+
+    /**
+     * @param skipUnchanged skip files with the same content hash as the file already in the target folder
+     */
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    public boolean isSkipUnchanged() {
+        return skipUnchanged;
+    }
+
+    /**
+     * @param folder absolute folder of the content store, empty to upload every file
+     */
+    public void setContentStore(String folder) {
+        contentStore = StringUtils.isEmpty(folder) ? null : new ContentStore(dropbox, StringUtils.removeEnd(folder, "/"));
+    }
+
+    public String getContentStore() {
+        return contentStore == null ? null : contentStore.getFolder();
+    }
+
+    /**
+     * @param uploadTuning measurements that size the uploads, null to upload in fixed size chunks
+     */
+    public void setUploadTuning(UploadTuning uploadTuning) {
+        dropbox.setUploadTuning(uploadTuning);
+    }
+
+    public UploadTuning getUploadTuning() {
+        return dropbox.getUploadTuning();
+    }
+
+    /**
+     * @param readAheadSize bytes of chunks that may be read ahead per file while the current chunk is sent
+     */
+    public void setReadAheadSize(long readAheadSize) {
+        dropbox.setReadAheadSize(readAheadSize);
+    }
 }
@@ -29,28 +29,54 @@ import com.cloudbees.plugins.credentials.domains.DomainRequirement;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import hudson.util.Secret;
 import jenkins.model.Jenkins;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.publishoverdropbox.DropboxToken;
 import org.jenkinsci.plugins.publishoverdropbox.domain.model.*;
 import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.*;
-import org.jenkinsci.plugins.publishoverdropbox.gson.RuntimeTypeAdapterFactory;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionStart.SessionType;
+import org.jenkinsci.plugins.publishoverdropbox.gson.MetadataTypeAdapterFactory;
+import org.jenkinsci.plugins.publishoverdropbox.gson.RequestTypeAdapterFactory;
+import org.jenkinsci.plugins.publishoverdropbox.gson.ResponseTypeAdapterFactory;
 import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
 
 import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
 
 import static org.jenkinsci.plugins.publishoverdropbox.domain.JsonObjectRequest.Method.POST;
 
@@ -62,25 +88,62 @@ public class DropboxV2 implements DropboxAdapter {
     private static final String URL_LIST_FOLDER = "https://api.dropboxapi.com/2/files/list_folder";
     private static final String URL_LIST_FOLDER_CONTINUE = "https://api.dropboxapi.com/2/files/list_folder/continue";
     private static final String URL_OPS_DELETE = "https://api.dropboxapi.com/2/files/delete";
+    private static final String URL_DELETE_BATCH = "https://api.dropboxapi.com/2/files/delete_batch";
+    private static final String URL_DELETE_BATCH_CHECK = "https://api.dropboxapi.com/2/files/delete_batch/check";
     private static final String URL_CREATE_FOLDER = "https://api.dropboxapi.com/2/files/create_folder";
+    private static final String URL_CREATE_FOLDER_BATCH = "https://api.dropboxapi.com/2/files/create_folder_batch";
+    private static final String URL_CREATE_FOLDER_BATCH_CHECK = "https://api.dropboxapi.com/2/files/create_folder_batch/check";
 
     private static final String URL_UPLOAD = "https://content.dropboxapi.com/2/files/upload";
     private static final String URL_UPLOAD_START = "https://content.dropboxapi.com/2/files/upload_session/start";
     private static final String URL_UPLOAD_APPEND = "https://content.dropboxapi.com/2/files/upload_session/append_v2";
     private static final String URL_UPLOAD_FINISH = "https://content.dropboxapi.com/2/files/upload_session/finish";
+    private static final String URL_UPLOAD_FINISH_BATCH = "https://api.dropboxapi.com/2/files/upload_session/finish_batch";
+    private static final String URL_UPLOAD_FINISH_BATCH_CHECK = "https://api.dropboxapi.com/2/files/upload_session/finish_batch/check";
+    private static final String URL_COPY = "https://api.dropboxapi.com/2/files/copy_v2";
+    private static final String URL_COPY_BATCH = "https://api.dropboxapi.com/2/files/copy_batch_v2";
+    private static final String URL_COPY_BATCH_CHECK = "https://api.dropboxapi.com/2/files/copy_batch/check_v2";
     private static final String PATH_SEPARATOR = "/";
     private static final String VALUE_AUTHORIZATION_CODE = "authorization_code";
     private static final long MILLISECONDS_PER_DAY = 24 * 60 * 60 * 1000;
     private static final long FOUR_MEGA_BYTE = 4 * 1024 * 1024;
+    public static final int MAX_BATCH_ENTRIES = 1000;
+    // All but the last chunk of a concurrent upload session must be a multiple of 4 MB
+    private static final long CONCURRENT_CHUNK_MULTIPLE = FOUR_MEGA_BYTE;
     private static final String APPLICATION_JSON = "application/json";
     private static final String APPLICATION_OCTET_STREAM = "application/octet-stream";
+    private static final long ASYNC_JOB_FIRST_POLL = 250;
+    private static final long ASYNC_JOB_MAX_POLL = 5000;
+    private static final int HTTP_CONFLICT = 409;
+    private static final String ERROR_NOT_FOUND = "path_lookup/not_found";
+    private static final String ERROR_TOO_MANY_FILES = "too_many_files";
+    private static final String ERROR_TOO_MANY_WRITE_OPERATIONS = "too_many_write_operations";
+    private static final String ERROR_SESSION_NOT_FOUND = "not_found";
+    private static final String ERROR_SESSION_CLOSED = "closed";
+    private static final int CHUNK_ATTEMPTS = 5;
+    private static final long CHUNK_RETRY_DELAY = 1000;
+    private static final int VERIFY_BUFFER_SIZE = 64 * 1024;
+    // Largest page list_folder accepts
+    private static final int LIST_LIMIT = 2000;
 
     @VisibleForTesting
     long chunkSize = FOUR_MEGA_BYTE;
+    @VisibleForTesting
+    HttpTransport transport;
+    @VisibleForTesting
+    ChunkBufferPool bufferPool = ChunkBufferPool.getInstance();
     private int timeout = -1;
+    private int chunkWorkers = 1;
+    private UploadTuning uploadTuning;
+    private long readAheadSize;
+    private boolean implicitFolders;
+    private boolean replaceOnClean;
+    private ChunkTimingListener chunkTimingListener;
+    private static ExecutorService chunkExecutorService;
     private final String accessToken;
     private final Gson gson;
     private AccountInfo userInfo;
+    private final MetadataCache metadataCache = MetadataCache.getInstance();
     private FolderMetadata workingFolder;
 
     public DropboxV2(String accessToken) {
@@ -89,12 +152,10 @@ public class DropboxV2 implements DropboxAdapter {
     }
 
     public static Gson createGson() {
-        RuntimeTypeAdapterFactory<Metadata> metadataAdapterFactory = RuntimeTypeAdapterFactory
-                .of(Metadata.class, ".tag")
-                .registerSubtype(FolderMetadata.class, "folder")
-                .registerSubtype(FileMetadata.class, "file");
         return new GsonBuilder()
-                .registerTypeAdapterFactory(metadataAdapterFactory)
+                .registerTypeAdapterFactory(new MetadataTypeAdapterFactory())
+                .registerTypeAdapterFactory(new ResponseTypeAdapterFactory())
+                .registerTypeAdapterFactory(new RequestTypeAdapterFactory())
                 .create();
     }
 
@@ -117,6 +178,74 @@ public class DropboxV2 implements DropboxAdapter {
         return timeout;
     }
 
+    /**
+     * Number of chunks of one large file uploaded at the same time, values above 1 use a concurrent upload session.
+     *
+     * @param chunkWorkers parallel chunk uploads per file
+     */
+    @Override
+    public void setChunkWorkers(int chunkWorkers) {
+        this.chunkWorkers = Math.max(1, chunkWorkers);
+    }
+
+    @Override
+    public int getChunkWorkers() {
+        return chunkWorkers;
+    }
+
+    /**
+     * Size chunks and single uploads from measured throughput instead of the fixed chunk size.
+     *
+     * @param uploadTuning measurements of the host configuration, null to use the fixed chunk size
+     */
+    @Override
+    public void setUploadTuning(UploadTuning uploadTuning) {
+        this.uploadTuning = uploadTuning;
+    }
+
+    @Override
+    public UploadTuning getUploadTuning() {
+        return uploadTuning;
+    }
+
+    @Override
+    public void setReadAheadSize(long readAheadSize) {
+        this.readAheadSize = Math.max(0, readAheadSize);
+    }
+
+    /**
+     * Changing the working folder no longer looks the folder up, uploads and commits create missing parent folders.
+     *
+     * @param implicitFolders trust that working folders exist or will be created by the files written in them
+     */
+    @Override
+    public void setImplicitFolders(boolean implicitFolders) {
+        this.implicitFolders = implicitFolders;
+    }
+
+    @Override
+    public boolean isImplicitFolders() {
+        return implicitFolders;
+    }
+
+    /**
+     * @param replaceOnClean clean the working folder by deleting it as a whole and creating it again
+     */
+    @Override
+    public void setReplaceOnClean(boolean replaceOnClean) {
+        this.replaceOnClean = replaceOnClean;
+    }
+
+    @Override
+    public boolean isReplaceOnClean() {
+        return replaceOnClean;
+    }
+
+    @Override
+    public void setChunkTimingListener(ChunkTimingListener listener) {
+        this.chunkTimingListener = listener;
+    }
+
     @Override
     public boolean connect() throws RestException {
         userInfo = retrieveAccountInfo();
@@ -151,7 +280,7 @@ public class DropboxV2 implements DropboxAdapter {
         boolean hasSuccess = true;
         try {
             if (!StringUtils.isEmpty(relativePath)) {
-                final Metadata metadata = retrieveMetaData(relativePath);
+                final Metadata metadata = implicitFolders ? implicitFolder(relativePath) : retrieveFolderMetaData(relativePath);
                 if (metadata.isDir() && metadata instanceof FolderMetadata) {
                     workingFolder = (FolderMetadata) metadata;
                 }
@@ -164,12 +293,11 @@ public class DropboxV2 implements DropboxAdapter {
 
     @Override
     public FolderMetadata makeDirectory(@Nonnull String path) throws RestException {
-        URL url = getUrl(URL_CREATE_FOLDER);
         FolderMetadata folder = null;
         String absolute = createAbsolutePath(path);
 
         try {
-            Metadata metadata = retrieveMetaData(absolute);
+            Metadata metadata = retrieveFolderMetaData(absolute);
             if (metadata.isDir()) {
                 folder = (FolderMetadata) metadata;
             }
@@ -178,41 +306,112 @@ public class DropboxV2 implements DropboxAdapter {
         }
 
         if (folder == null) {
-            CreateFolderRequest requestContent = new CreateFolderRequest();
-            requestContent.setPath(absolute);
-            JsonObjectRequest<FolderMetadata> request = requestPostRequestResponse(url, requestContent, FolderMetadata.class);
-            try {
-                folder = request.execute();
-            } catch (IOException e) {
-                throw new RestException(Messages.exception_dropbox_folder_create(path), e);
-            }
+            folder = createFolder(absolute, path);
         }
 
         return folder;
     }
 
+    private FolderMetadata createFolder(String absolute, String path) throws RestException {
+        URL url = getUrl(URL_CREATE_FOLDER);
+        CreateFolderRequest requestContent = new CreateFolderRequest();
+        requestContent.setPath(absolute);
+        JsonObjectRequest<FolderMetadata> request = requestPostRequestResponse(url, requestContent, FolderMetadata.class);
+        FolderMetadata folder;
+        try {
+            folder = request.execute();
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_dropbox_folder_create(path), e);
+        }
+        metadataCache.put(getAccountId(), folder);
+
+        return folder;
+    }
+
+    /**
+     * Creates folders in a single batch and waits for the batch job to complete.
+     *
+     * @param paths up to {@value #MAX_BATCH_ENTRIES} absolute folder paths
+     * @return the outcome for each folder, in the same order
+     */
     @Override
-    public void cleanWorkingFolder() throws RestException {
+    public List<BatchEntryResult> createFolderBatch(@Nonnull List<String> paths) throws RestException {
+        URL url = getUrl(URL_CREATE_FOLDER_BATCH);
+        CreateFolderBatch requestContent = new CreateFolderBatch();
+        requestContent.getPaths().addAll(paths);
+        JsonObjectRequest<AsyncJobStatus> request = requestPostRequestResponse(url, requestContent, AsyncJobStatus.class);
+        AsyncJobStatus status;
+        try {
+            status = request.execute();
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_dropbox_folder_create_batch(paths.size()), e);
+        }
+        status = awaitAsyncJob(URL_CREATE_FOLDER_BATCH_CHECK, status);
+
+        return getBatchResults(status, paths.size());
+    }
+
+    /**
+     * Deletes the content of the working folder, in batches.
+     *
+     * @return messages of the entries that failed to be deleted, empty when all succeeded
+     */
+    @Override
+    public List<String> cleanWorkingFolder() throws RestException {
+        if (workingFolder.isDir() && replaceOnClean && !isRoot(workingFolder) && replaceWorkingFolder()) {
+            return Collections.emptyList();
+        }
         if (workingFolder.isDir()) {
-            FolderContent contents = listFilesOfFolder(workingFolder);
-            String cursor = null;
-            do {
-                if (cursor != null) {
-                    contents = listFilesForCursor(cursor);
+            BatchDeleter deleter = new BatchDeleter(this);
+            boolean listed = false;
+            try (FolderListing listing = listAbsolute(workingFolder.getPathLower(), false, LIST_LIMIT)) {
+                while (listing.hasNext()) {
+                    listed = true;
+                    deleter.add(listing.next().getPathLower());
                 }
-                for (Metadata entry : contents.getEntries()) {
-                    delete(entry);
+            } catch (RestException e) {
+                ResponseException response = ResponseException.find(e);
+                if (listed || !implicitFolders || response == null || response.getResponseCode() != HTTP_CONFLICT) {
+                    throw e;
                 }
-                if (contents.hasMore()) {
-                    cursor = contents.getCursor();
-                }
-            } while (contents.hasMore() && cursor != null);
-
+                // An implicit working folder that is not there (yet) has nothing to clean
+            }
+            return deleter.finish();
         } else {
             throw new RestException(Messages.exception_dropbox_folder_delete(workingFolder.getName()));
         }
     }
 
+    /**
+     * Empties the working folder with a single delete, then creates the folder again. With implicit folders the uploads
+     * into the folder create it again.
+     *
+     * @return false when the folder holds too many entries to delete at once, it is left as it was
+     */
+    private boolean replaceWorkingFolder() throws RestException {
+        String path = StringUtils.defaultIfEmpty(workingFolder.getPathDisplay(), workingFolder.getPathLower());
+        try {
+            delete(path);
+        } catch (RestException e) {
+            String summary = findErrorSummary(e);
+            if (summary.startsWith(ERROR_TOO_MANY_FILES) || summary.startsWith(ERROR_TOO_MANY_WRITE_OPERATIONS)) {
+                return false;
+            }
+            if (!implicitFolders || !summary.startsWith(ERROR_NOT_FOUND)) {
+                throw e;
+            }
+            // An implicit working folder that is not there (yet) has nothing to clean
+        }
+        if (!implicitFolders) {
+            workingFolder = createFolder(path, path);
+        }
+        return true;
+    }
+
+    private static boolean isRoot(Metadata folder) {
+        return StringUtils.isEmpty(StringUtils.removeEnd(folder.getPathLower(), PATH_SEPARATOR));
+    }
+
     void delete(@Nonnull Metadata metadata) throws RestException {
         final String path = metadata.getPathLower();
         delete(path);
@@ -229,76 +428,188 @@ public class DropboxV2 implements DropboxAdapter {
                 request.execute();
             } catch (IOException e) {
                 throw new RestException(Messages.exception_dropbox_folder_delete(path), e);
+            } finally {
+                metadataCache.invalidate(getAccountId(), absolute);
             }
         } else {
             throw new RestException(Messages.exception_dropbox_folder_delete(path));
         }
     }
 
+    /**
+     * Deletes the entries of a folder that were not modified for some days, in batches. A folder counts as modified
+     * when any file below it is.
+     *
+     * @return messages of the entries that failed to be deleted, empty when all succeeded
+     */
     @Override
-    public void pruneFolder(@Nonnull String path, int pruneRootDays) throws RestException {
+    public List<String> pruneFolder(@Nonnull String path, int pruneRootDays) throws RestException {
         Date cutoff = new Date(System.currentTimeMillis() - pruneRootDays * MILLISECONDS_PER_DAY);
-        String absolute = createAbsolutePath(path);
-        FolderContent contents = listFilesOfPath(absolute);
-        String cursor = null;
-        do {
-            if (cursor != null) {
-                contents = listFilesForCursor(cursor);
-            }
-            for (Metadata entry : contents.getEntries()) {
-                boolean isModifiedSince = isEntryModifiedSince(entry, cutoff);
-                if (!isModifiedSince) {
-                    delete(entry.getPathLower());
-                }
+        Map<String, String> newest = findNewestModified(StringUtils.removeEnd(createAbsolutePath(path), PATH_SEPARATOR));
+        BatchDeleter deleter = new BatchDeleter(this);
+        for (Map.Entry<String, String> entry : newest.entrySet()) {
+            String serverModified = entry.getValue();
+            if (serverModified == null || !parseDate(serverModified).after(cutoff)) {
+                deleter.add(entry.getKey());
             }
-            // Paging of the listing
-            cursor = contents.getCursor();
         }
-        while (contents.hasMore() && cursor != null);
+        return deleter.finish();
     }
 
-    private boolean isEntryModifiedSince(@Nonnull Metadata metadata, @Nonnull Date cutoff) throws RestException {
-        boolean isModifiedSince = false;
-        if (metadata instanceof FileMetadata) {
-            Date lastModified = parseDate(((FileMetadata) metadata).getServerModified());
-            isModifiedSince = lastModified.after(cutoff);
-        } else if (metadata instanceof FolderMetadata) {
-            FolderContent contents = listFilesOfFolder((FolderMetadata) metadata);
-            String cursor = null;
-            contents:
-            do {
-                if (cursor != null) {
-                    contents = listFilesForCursor(cursor);
-                }
-                List<Metadata> entries = contents.getEntries();
-                // Evaluate file date first since that is available
-                for (Metadata entry : entries) {
-                    if (entry instanceof FileMetadata) {
-                        isModifiedSince = isEntryModifiedSince(entry, cutoff);
-                        if (isModifiedSince) {
-                            break contents;
-                        }
-                    }
-                }
-                // Traverse the given folders after evaluating the files
-                for (Metadata entry : entries) {
-                    if (entry instanceof FolderMetadata) {
-                        isModifiedSince = isEntryModifiedSince(entry, cutoff);
-                        if (isModifiedSince) {
-                            break contents;
-                        }
-                    }
+    /**
+     * Lists a folder with all its sub folders in one go and keeps the newest file modification below each entry of
+     * the folder, so memory grows with the entries of the folder only. Dropbox writes server_modified in a fixed
+     * ISO 8601 form, the newest sorts last as text.
+     *
+     * @param folder absolute path of the folder
+     * @return lower case path of each entry of the folder to the newest server_modified of the files in or below it,
+     * null for folders without files
+     */
+    private Map<String, String> findNewestModified(String folder) throws RestException {
+        try (FolderListing listing = listAbsolute(folder, true, LIST_LIMIT)) {
+            return findNewestModified(folder, listing);
+        }
+    }
+
+    /**
+     * @param folder  absolute path of the folder
+     * @param listing recursive listing of the folder
+     */
+    @VisibleForTesting
+    static Map<String, String> findNewestModified(String folder, FolderListing listing) throws RestException {
+        String prefix = folder.toLowerCase(Locale.ROOT) + PATH_SEPARATOR;
+        Map<String, String> newest = new LinkedHashMap<>();
+        while (listing.hasNext()) {
+            Metadata entry = listing.next();
+            String pathLower = entry.getPathLower();
+            if (pathLower == null || !pathLower.startsWith(prefix)) {
+                // The folder itself
+                continue;
+            }
+            int end = pathLower.indexOf(PATH_SEPARATOR, prefix.length());
+            String top = end < 0 ? pathLower : pathLower.substring(0, end);
+            String serverModified = entry instanceof FileMetadata ? ((FileMetadata) entry).getServerModified() : null;
+            String current = newest.get(top);
+            if ((current == null && !newest.containsKey(top))
+                    || (serverModified != null && (current == null || serverModified.compareTo(current) > 0))) {
+                newest.put(top, serverModified);
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Deletes files and folders in a single batch and waits for the batch job to complete.
+     *
+     * @param paths up to {@value #MAX_BATCH_ENTRIES} absolute paths
+     * @return the outcome for each path, in the same order
+     */
+    @Override
+    public List<BatchEntryResult> deleteBatch(@Nonnull List<String> paths) throws RestException {
+        URL url = getUrl(URL_DELETE_BATCH);
+        DeleteBatch requestContent = new DeleteBatch();
+        for (String path : paths) {
+            DeleteRequest entry = new DeleteRequest();
+            entry.setPath(path);
+            requestContent.getEntries().add(entry);
+        }
+        JsonObjectRequest<AsyncJobStatus> request = requestPostRequestResponse(url, requestContent, AsyncJobStatus.class);
+        AsyncJobStatus status;
+        try {
+            status = request.execute();
+            status = awaitAsyncJob(URL_DELETE_BATCH_CHECK, status);
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_dropbox_file_delete_batch(paths.size()), e);
+        } finally {
+            for (String path : paths) {
+                metadataCache.invalidate(getAccountId(), path);
+            }
+        }
+
+        return getBatchResults(status, paths.size());
+    }
+
+    /**
+     * Lists a folder page by page, fetching the next page while the current one is consumed.
+     *
+     * @param path      folder to list, relative to the working folder or absolute
+     * @param recursive include the content of all sub folders
+     * @param limit     approximate maximum number of entries per page, at most 2000
+     * @return the entries of the folder, to be closed when done
+     */
+    @Override
+    public FolderListing listFolder(@Nonnull String path, boolean recursive, int limit) {
+        // Dropbox names the root "" and refuses paths ending in a separator
+        return listAbsolute(StringUtils.removeEnd(createAbsolutePath(path), PATH_SEPARATOR), recursive, limit);
+    }
+
+    private FolderListing listAbsolute(@Nonnull String absolute, boolean recursive, int limit) {
+        return new FolderListing(absolute, new FolderListing.PageSource() {
+            @Override
+            public FolderContent first() throws RestException {
+                return listFilesOfPath(absolute, recursive, Math.max(1, Math.min(LIST_LIMIT, limit)));
+            }
+
+            @Override
+            public FolderContent next(String cursor) throws RestException {
+                return listFilesForCursor(cursor);
+            }
+        });
+    }
+
+    /**
+     * Lists all files below a folder with a single recursive listing.
+     *
+     * @param path folder to list, relative to the working folder or absolute
+     * @return the files in the folder and its sub folders, empty when the folder does not exist
+     */
+    @Override
+    public List<FileMetadata> listFiles(@Nonnull String path) throws RestException {
+        List<FileMetadata> files = new ArrayList<>();
+        try (FolderListing listing = listFolder(path, true, LIST_LIMIT)) {
+            while (listing.hasNext()) {
+                Metadata entry = listing.next();
+                if (entry instanceof FileMetadata) {
+                    files.add((FileMetadata) entry);
                 }
-                // Paging of the listing
-                cursor = contents.getCursor();
             }
-            while (contents.hasMore() && cursor != null);
+        } catch (RestException e) {
+            ResponseException response = ResponseException.find(e);
+            if (response != null && response.getResponseCode() == HTTP_CONFLICT && files.isEmpty()) {
+                // Path errors, the folder is not there (yet)
+                return new ArrayList<>();
+            }
+            throw e;
         }
 
-        return isModifiedSince;
+        return files;
+    }
+
+    /**
+     * Lists everything below a folder with a single recursive listing.
+     *
+     * @param path folder to list, relative to the working folder or absolute
+     * @return the files and folders in the folder and its sub folders, empty when the folder does not exist
+     */
+    @Override
+    public RemoteTree listTree(@Nonnull String path) throws RestException {
+        RemoteTree tree = new RemoteTree();
+        try (FolderListing listing = listFolder(path, true, LIST_LIMIT)) {
+            while (listing.hasNext()) {
+                tree.add(listing.next());
+            }
+        } catch (RestException e) {
+            ResponseException response = ResponseException.find(e);
+            if (response != null && response.getResponseCode() == HTTP_CONFLICT && tree.size() == 1) {
+                // Path errors, the folder is not there (yet)
+                return tree;
+            }
+            throw e;
+        }
+
+        return tree;
     }
 
-    @VisibleForTesting
     Date parseDate(String serverModified) throws RestException {
         SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
         try {
@@ -309,20 +620,191 @@ public class DropboxV2 implements DropboxAdapter {
     }
 
     /**
-     * @param name    name of the new file to store the content in
+     * @param name    name of the new file to store the content in, relative to the working folder or absolute
      * @param content data stream of the content
      * @param length  content size in bytes
      */
 
     @Override
     public void storeFile(@Nonnull String name, @Nonnull InputStream content, long length) throws RestException {
-        if (length <= chunkSize) {
+        long chunkSize = getChunkSize();
+        if (length <= getSingleUploadLimit()) {
             singleStore(name, content, length);
+        } else if (chunkWorkers > 1 && chunkSize % CONCURRENT_CHUNK_MULTIPLE == 0) {
+            concurrentStore(name, content, length, chunkSize);
         } else {
-            chunkedStore(name, content, length);
+            chunkedStore(name, content, length, chunkSize);
+        }
+    }
+
+    /**
+     * Stores a file of this node. Chunks are sent as regions of the file instead of through buffers, and a failed
+     * chunk is read again from the file.
+     *
+     * @param name   name of the new file to store the content in, relative to the working folder or absolute
+     * @param file   local file with the content
+     * @param length content size in bytes
+     */
+    @Override
+    public void storeFile(@Nonnull String name, @Nonnull File file, long length) throws RestException {
+        long chunkSize = getChunkSize();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (length <= getSingleUploadLimit()) {
+                singleStore(name, new FileRegion(channel, 0, length), length);
+            } else if (chunkWorkers > 1 && chunkSize % CONCURRENT_CHUNK_MULTIPLE == 0) {
+                concurrentStore(name, channel, length, chunkSize);
+            } else {
+                chunkedStore(name, channel, file.lastModified(), length, chunkSize);
+            }
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_store_chunk_continue(name), e);
+        }
+    }
+
+    @Override
+    public long getChunkSize() {
+        return uploadTuning == null ? chunkSize : uploadTuning.getChunkSize();
+    }
+
+    /**
+     * @return size up to which files are uploaded in a single request
+     */
+    @Override
+    public long getSingleUploadLimit() {
+        return uploadTuning == null ? chunkSize : uploadTuning.getSingleUploadLimit();
+    }
+
+    /**
+     * Uploads the complete content of a small file into a closed upload session, to be committed by
+     * {@link #finishBatch(List)}.
+     *
+     * @param name    name of the file, used in error messages
+     * @param content data stream of the content
+     * @param length  content size in bytes
+     * @return the closed session holding the content
+     */
+    @Override
+    public Session storeSessionContent(@Nonnull String name, @Nonnull InputStream content, long length) throws RestException {
+        URL startUrl = getUrl(URL_UPLOAD_START);
+        SessionStart startContent = new SessionStart();
+        startContent.setClose(true);
+        JsonObjectRequest<Session> startRequest = requestForUpload(startUrl, startContent, Session.class, content, length);
+        try {
+            return startRequest.execute();
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_store_chunk_start(name), e);
+        }
+    }
+
+    /**
+     * Commits closed upload sessions in a single batch and waits for the batch job to complete.
+     *
+     * @param commits up to {@value #MAX_BATCH_ENTRIES} sessions with their commit info
+     * @return the outcome for each commit, in the same order
+     */
+    @Override
+    public List<BatchEntryResult> finishBatch(@Nonnull List<SessionFinish> commits) throws RestException {
+        URL url = getUrl(URL_UPLOAD_FINISH_BATCH);
+        SessionFinishBatch requestContent = new SessionFinishBatch();
+        requestContent.getEntries().addAll(commits);
+        JsonObjectRequest<AsyncJobStatus> request = requestPostRequestResponse(url, requestContent, AsyncJobStatus.class);
+        AsyncJobStatus status;
+        try {
+            status = request.execute();
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_dropbox_file_batch(commits.size()), e);
+        }
+        status = awaitAsyncJob(URL_UPLOAD_FINISH_BATCH_CHECK, status);
+
+        return getBatchResults(status, commits.size());
+    }
+
+    /**
+     * Copies a file on the server, without transferring its content.
+     *
+     * @param fromPath file to copy, relative to the working folder or absolute
+     * @param toPath   destination of the copy, relative to the working folder or absolute
+     */
+    @Override
+    public void copyFile(@Nonnull String fromPath, @Nonnull String toPath) throws RestException {
+        URL url = getUrl(URL_COPY);
+        RelocationPath requestContent = new RelocationPath(createAbsolutePath(fromPath), createAbsolutePath(toPath));
+        JsonObjectRequest<ErrorResponse> request = requestPostRequestResponse(url, requestContent, ErrorResponse.class);
+        try {
+            request.execute();
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_dropbox_file_copy(fromPath, toPath), e);
         }
     }
 
+    /**
+     * Copies files on the server in a single batch and waits for the batch job to complete.
+     *
+     * @param copies up to {@value #MAX_BATCH_ENTRIES} absolute source and destination paths
+     * @return the outcome for each copy, in the same order
+     */
+    @Override
+    public List<BatchEntryResult> copyBatch(@Nonnull List<RelocationPath> copies) throws RestException {
+        URL url = getUrl(URL_COPY_BATCH);
+        RelocationBatch requestContent = new RelocationBatch();
+        requestContent.getEntries().addAll(copies);
+        JsonObjectRequest<AsyncJobStatus> request = requestPostRequestResponse(url, requestContent, AsyncJobStatus.class);
+        AsyncJobStatus status;
+        try {
+            status = request.execute();
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_dropbox_file_copy_batch(copies.size()), e);
+        }
+        status = awaitAsyncJob(URL_COPY_BATCH_CHECK, status);
+
+        return getBatchResults(status, copies.size());
+    }
+
+    /**
+     * @param entries number of entries sent in the batch
+     * @return the result of each entry of a completed batch job, in the order the entries were sent
+     */
+    private static List<BatchEntryResult> getBatchResults(AsyncJobStatus status, int entries) throws RestException {
+        List<BatchEntryResult> results = status.getEntries();
+        int answered = results == null ? 0 : results.size();
+        if (answered != entries) {
+            // Without a result per entry there is no telling which entries succeeded
+            throw new RestException(Messages.exception_dropbox_batch_results(answered, entries));
+        }
+        return results;
+    }
+
+    /**
+     * Polls a launched async job with growing intervals until it is no longer in progress.
+     */
+    private AsyncJobStatus awaitAsyncJob(String checkUrl, AsyncJobStatus launched) throws RestException {
+        AsyncJobStatus status = launched;
+        String asyncJobId = launched.getAsyncJobId();
+        long delay = ASYNC_JOB_FIRST_POLL;
+        while (status.isPending()) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RestException(Messages.exception_dropbox_asyncjob(asyncJobId), e);
+            }
+            delay = Math.min(delay * 2, ASYNC_JOB_MAX_POLL);
+            AsyncJobRequest requestContent = new AsyncJobRequest();
+            requestContent.setAsyncJobId(asyncJobId);
+            JsonObjectRequest<AsyncJobStatus> request = requestPostRequestResponse(getUrl(checkUrl), requestContent, AsyncJobStatus.class);
+            try {
+                status = request.execute();
+            } catch (IOException e) {
+                throw new RestException(Messages.exception_dropbox_asyncjob(asyncJobId), e);
+            }
+        }
+        if (!status.isComplete()) {
+            throw new RestException(Messages.exception_dropbox_asyncjob(asyncJobId));
+        }
+
+        return status;
+    }
+
     /* *
      * Private helpers
      * */
@@ -330,7 +812,7 @@ public class DropboxV2 implements DropboxAdapter {
     private FileMetadata singleStore(@Nonnull String name, @Nonnull InputStream content, long length) throws RestException {
         URL url = getUrl(URL_UPLOAD);
         UploadRequest uploadRequest = new UploadRequest();
-        uploadRequest.setPath(createPath(name));
+        uploadRequest.setPath(createAbsolutePath(name));
         JsonObjectRequest<FileMetadata> request = requestForUpload(url, uploadRequest, FileMetadata.class, content, length);
         final FileMetadata fileMetadata;
         try {
@@ -342,61 +824,522 @@ public class DropboxV2 implements DropboxAdapter {
         return fileMetadata;
     }
 
-    private void chunkedStore(String name, InputStream content, long length) throws RestException {
-        // Start session
-        InputStream chunkStream;
+    /**
+     * Uploads the content sequentially in chunks of one upload session. The current chunk is kept in a buffer so a
+     * failed chunk can be sent again, and the confirmed progress is remembered so a retried upload of the same file
+     * continues the session instead of starting from the first byte. Later chunks are read ahead within the read ahead
+     * size while the current one is sent.
+     */
+    private void chunkedStore(final String name, InputStream content, long length, long chunkSize) throws RestException {
+        final String key = ResumableSessions.key(accessToken, createAbsolutePath(name), length);
+        final CRC32 checksum = new CRC32();
+        ResumableSessions.Progress resumed = findResumableSession(name, key, ResumableSessions.Progress::isOfStream);
+        if (resumed != null && resumed.getCheckedLength() - resumed.getOffset() > chunkSize) {
+            // Too much to hold back while verifying
+            ResumableSessions.forget(key);
+            resumed = null;
+        }
         long offSet = 0;
-        URL startUrl = getUrl(URL_UPLOAD_START);
-        chunkStream = new ChunkedInputStream(content, chunkSize);
-        SessionStart startContent = new SessionStart();
-        JsonObjectRequest<Session> startRequest = requestForUpload(startUrl, startContent, Session.class, chunkStream, chunkSize);
-        Session session;
+        if (resumed != null) {
+            content = resumeSession(name, key, resumed, content, checksum);
+            offSet = resumed.getOffset();
+        }
+        long networkNanos = 0;
+        ReadAhead readAhead = new ReadAhead(content, length - offSet, (int) chunkSize, readAheadSize, bufferPool);
         try {
-            session = startRequest.execute();
+            Session session;
+            if (resumed != null) {
+                session = new Session();
+                session.setSessionId(resumed.getSessionId());
+            } else {
+                // Start session
+                ReadAhead.Chunk chunk = nextChunk(name, readAhead);
+                long start = System.nanoTime();
+                session = sendChunk((chunkOffSet, data, dataLength) ->
+                        startSession(name, SessionType.SEQUENTIAL, data, dataLength), 0, chunk.getBuffer(), chunk.getSize());
+                networkNanos += System.nanoTime() - start;
+                offSet = chunk.getSize();
+                checksum.update(chunk.getBuffer().duplicate());
+                readAhead.release(chunk);
+                ResumableSessions.remember(key, session.getSessionId(), offSet, checksum.getValue());
+            }
+            final Session started = session;
+            while (length - offSet > chunkSize) {
+                // Add chunk to session
+                ReadAhead.Chunk chunk = nextChunk(name, readAhead);
+                long start = System.nanoTime();
+                sendChunk((chunkOffSet, data, dataLength) -> {
+                    appendSession(name, started, chunkOffSet, false, data, dataLength);
+                    return null;
+                }, offSet, chunk.getBuffer(), chunk.getSize());
+                networkNanos += System.nanoTime() - start;
+                offSet += chunk.getSize();
+                checksum.update(chunk.getBuffer().duplicate());
+                readAhead.release(chunk);
+                ResumableSessions.remember(key, session.getSessionId(), offSet, checksum.getValue());
+            }
+            // Commit uploader
+            ReadAhead.Chunk chunk = nextChunk(name, readAhead);
+            long start = System.nanoTime();
+            sendChunk((chunkOffSet, data, dataLength) ->
+                    finishSession(name, started, chunkOffSet, data, dataLength), offSet, chunk.getBuffer(), chunk.getSize());
+            networkNanos += System.nanoTime() - start;
+            ResumableSessions.forget(key);
+        } finally {
+            readAhead.close();
+        }
+        if (chunkTimingListener != null) {
+            chunkTimingListener.uploaded(name, length, readAhead.getDiskNanos(), networkNanos);
+        }
+    }
+
+    private static ReadAhead.Chunk nextChunk(String name, ReadAhead readAhead) throws RestException {
+        try {
+            return readAhead.next();
         } catch (IOException e) {
-            throw new RestException(Messages.exception_store_chunk_end(name), e);
+            throw new RestException(Messages.exception_store_chunk_continue(name), e);
         }
-        offSet += chunkSize;
+    }
 
-        while (length - offSet > chunkSize) {
-            // Add chunk to session
-            URL appendUrl = getUrl(URL_UPLOAD_APPEND);
-            chunkStream = new ChunkedInputStream(content, chunkSize);
-            SessionAppend appendContent = new SessionAppend();
-            appendContent.cursor.setOffset(offSet);
-            appendContent.cursor.setSessionId(session.getSessionId());
-            JsonObjectRequest<ErrorResponse> appendRequest = requestForUpload(appendUrl, appendContent, ErrorResponse.class, chunkStream, chunkSize);
+    /**
+     * Continue the session of an earlier attempt to upload this file. The bytes covered by the remembered checksum are
+     * read and verified, those after the offset of the session are held back to be sent again.
+     *
+     * @return the content positioned at the offset of the resumed session
+     */
+    private InputStream resumeSession(String name, String key, ResumableSessions.Progress resumable, InputStream content,
+                                      CRC32 checksum) throws RestException {
+        CRC32 verify = new CRC32();
+        byte[] buffer = new byte[VERIFY_BUFFER_SIZE];
+        long verified = 0;
+        while (verified < resumable.getOffset()) {
+            int size = readChunk(name, content, buffer, Math.min(buffer.length, resumable.getOffset() - verified));
+            checksum.update(buffer, 0, size);
+            verify.update(buffer, 0, size);
+            verified += size;
+        }
+        byte[] heldBack = new byte[(int) (resumable.getCheckedLength() - verified)];
+        readChunk(name, content, heldBack, heldBack.length);
+        verify.update(heldBack);
+        if (verify.getValue() != resumable.getChecksum()) {
+            ResumableSessions.forget(key);
+            throw new RestException(Messages.exception_store_chunk_resume(name));
+        }
+
+        return heldBack.length == 0 ? content : new SequenceInputStream(new ByteArrayInputStream(heldBack), content);
+    }
+
+    /**
+     * An empty append verifies the session has not expired and expects the remembered offset. A session that expects
+     * an earlier offset continues from there, a session that expects bytes that were never confirmed can not be
+     * continued.
+     *
+     * @param matching whether the remembered progress is of the same content
+     * @return the remembered progress of an earlier attempt when its session still accepts data, null otherwise
+     */
+    private ResumableSessions.Progress findResumableSession(String name, String key, Predicate<ResumableSessions.Progress> matching) {
+        ResumableSessions.Progress resumable = ResumableSessions.lookup(key);
+        if (resumable == null) {
+            return null;
+        }
+        if (!matching.test(resumable)) {
+            ResumableSessions.forget(key);
+            return null;
+        }
+        Session session = new Session();
+        session.setSessionId(resumable.getSessionId());
+        try {
+            appendSession(name, session, resumable.getOffset(), false, new ByteArrayInputStream(new byte[0]), 0);
+        } catch (RestException e) {
+            Long correctOffSet = findCorrectOffset(e);
+            if (correctOffSet != null && correctOffSet <= resumable.getOffset()) {
+                return resumable.resync(correctOffSet);
+            }
+            String summary = findErrorSummary(e);
+            if (correctOffSet != null || summary.startsWith(ERROR_SESSION_NOT_FOUND) || summary.startsWith(ERROR_SESSION_CLOSED)) {
+                ResumableSessions.forget(key);
+                return null;
+            }
+            // The session could not be checked, the upload retries failed chunks itself
+            return isRetryable(e) ? resumable : null;
+        }
+        return resumable;
+    }
+
+    private static int readChunk(String name, InputStream content, byte[] buffer, long size) throws RestException {
+        try {
+            IOUtils.readFully(content, buffer, 0, (int) size);
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_store_chunk_continue(name), e);
+        }
+        return (int) size;
+    }
+
+    private interface ChunkRequest<T> {
+        T send(long offSet, InputStream chunk, long size) throws RestException;
+    }
+
+    /**
+     * Opens the content of a chunk from the given position within the chunk onwards.
+     */
+    private interface ChunkContent {
+        InputStream from(int start);
+    }
+
+    private <T> T sendChunk(ChunkRequest<T> request, long chunkOffSet, ByteBuffer buffer, int size) throws RestException {
+        return sendChunk(request, chunkOffSet, size, start -> new ByteBufferInputStream(buffer, start, size - start));
+    }
+
+    /**
+     * Sends a chunk, retrying failed requests. When the server reports an incorrect offset within this chunk only the
+     * part it has not received yet is sent again.
+     */
+    private <T> T sendChunk(ChunkRequest<T> request, long chunkOffSet, int size, ChunkContent content) throws RestException {
+        int sent = 0;
+        for (int attempt = 1; ; attempt++) {
             try {
-                appendRequest.execute();
-            } catch (IOException e) {
-                throw new RestException(Messages.exception_store_chunk_continue(name), e);
+                return request.send(chunkOffSet + sent, content.from(sent), size - sent);
+            } catch (RestException e) {
+                if (attempt >= CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                Long correctOffSet = findCorrectOffset(e);
+                if (correctOffSet != null && correctOffSet >= chunkOffSet && correctOffSet <= chunkOffSet + size) {
+                    sent = (int) (correctOffSet - chunkOffSet);
+                } else if (isRetryable(e)) {
+                    pause(CHUNK_RETRY_DELAY * attempt, e);
+                } else {
+                    throw e;
+                }
             }
-            offSet += chunkSize;
+        }
+    }
+
+    /**
+     * @return the error summary of the answer to a failed request, empty when there is none
+     */
+    private static String findErrorSummary(RestException e) {
+        ResponseException response = ResponseException.find(e);
+        if (response != null && response.getErrorResponse() instanceof ErrorResponse) {
+            return StringUtils.defaultString(((ErrorResponse) response.getErrorResponse()).getErrorSummary());
+        }
+        return "";
+    }
+
+    private static Long findCorrectOffset(RestException e) {
+        ResponseException response = ResponseException.find(e);
+        if (response != null && response.getErrorResponse() instanceof ErrorResponse) {
+            ErrorResponse.Error error = ((ErrorResponse) response.getErrorResponse()).getError();
+            return error == null ? null : error.getCorrectOffset();
+        }
+        return null;
+    }
+
+    /**
+     * Connection failures, rate limiting and server errors are worth a retry, other answers of the server are final.
+     */
+    private static boolean isRetryable(RestException e) {
+        ResponseException response = ResponseException.find(e);
+        return response == null || response.getResponseCode() == 429 || response.getResponseCode() >= 500;
+    }
+
+    private static void pause(long delay, RestException cause) throws RestException {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    /**
+     * Uploads the chunks of a concurrent session in parallel. The content is read sequentially into at most
+     * {@code chunkWorkers} pooled buffers, which limits the memory used per file. Fewer buffers are used when the pool
+     * runs short, the upload then waits for its own appends to finish.
+     */
+    private void concurrentStore(final String name, InputStream content, long length, long chunkSize) throws RestException {
+        final Session session = startSession(name, SessionType.CONCURRENT, new ByteArrayInputStream(new byte[0]), 0);
+        final ChunkBufferPool pool = bufferPool;
+        final BlockingQueue<ByteBuffer> buffers = new ArrayBlockingQueue<>(chunkWorkers);
+        final AtomicBoolean stored = new AtomicBoolean();
+        List<StagedAppend> appends = new ArrayList<>();
+        int allocated = 0;
+        long offSet = 0;
+        try {
+            while (offSet < length) {
+                final int size = (int) Math.min(chunkSize, length - offSet);
+                final boolean last = offSet + size >= length;
+                final long chunkOffSet = offSet;
+                ByteBuffer buffer = buffers.poll();
+                if (buffer == null && allocated < chunkWorkers) {
+                    // Never wait on the pool while holding buffers, the appends in flight give those back
+                    buffer = allocated == 0 ? pool.acquire((int) chunkSize) : pool.tryAcquire((int) chunkSize);
+                    if (buffer != null) {
+                        allocated++;
+                    }
+                }
+                if (buffer == null) {
+                    buffer = buffers.take();
+                }
+                final StagedAppend append = new StagedAppend(buffer, pool);
+                appends.add(append);
+                ChunkBufferPool.fill(buffer, content, size);
+                append.future = getChunkExecutorService().submit(() -> {
+                    if (!append.claim()) {
+                        return null;
+                    }
+                    try {
+                        sendChunk((appendOffSet, data, dataLength) -> {
+                            appendSession(name, session, appendOffSet, last, data, dataLength);
+                            return null;
+                        }, chunkOffSet, append.buffer, size);
+                    } finally {
+                        synchronized (buffers) {
+                            if (stored.get()) {
+                                pool.release(append.buffer);
+                            } else {
+                                buffers.offer(append.buffer);
+                            }
+                        }
+                    }
+                    return null;
+                });
+                offSet += size;
+                checkStagedAppends(appends);
+            }
+            for (StagedAppend append : appends) {
+                append.future.get();
+            }
+        } catch (ExecutionException e) {
+            cancelStagedAppends(appends);
+            Throwable cause = e.getCause();
+            if (cause instanceof RestException) {
+                throw (RestException) cause;
+            }
+            throw new RestException(Messages.exception_store_chunk_continue(name), cause);
+        } catch (IOException e) {
+            cancelStagedAppends(appends);
+            throw new RestException(Messages.exception_store_chunk_continue(name), e);
+        } catch (InterruptedException e) {
+            cancelStagedAppends(appends);
+            Thread.currentThread().interrupt();
+            throw new RestException(Messages.exception_store_chunk_continue(name), e);
+        } finally {
+            // Buffers of appends that are still running go back to the pool when those finish
+            synchronized (buffers) {
+                stored.set(true);
+                for (ByteBuffer buffer : buffers) {
+                    pool.release(buffer);
+                }
+            }
+        }
+        finishSession(name, session, length, new ByteArrayInputStream(new byte[0]), 0);
+    }
+
+    private static void checkStagedAppends(List<StagedAppend> appends) throws ExecutionException, InterruptedException {
+        for (StagedAppend append : appends) {
+            if (append.future != null && append.future.isDone()) {
+                append.future.get();
+            }
+        }
+    }
+
+    /**
+     * Cancels the appends, the buffers of appends that never started go back to the pool right away.
+     */
+    private static void cancelStagedAppends(List<StagedAppend> appends) {
+        for (StagedAppend append : appends) {
+            if (append.future != null) {
+                append.future.cancel(true);
+            }
+            if (append.claim()) {
+                append.pool.release(append.buffer);
+            }
+        }
+    }
+
+    /**
+     * A chunk staged in a pooled buffer. Either the append or its cancellation claims it, whoever claims it decides
+     * what happens to the buffer, so it never returns to the pool while the append still reads it.
+     */
+    private static final class StagedAppend {
+        private final ByteBuffer buffer;
+        private final ChunkBufferPool pool;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<Void> future;
+
+        private StagedAppend(ByteBuffer buffer, ChunkBufferPool pool) {
+            this.buffer = buffer;
+            this.pool = pool;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Uploads a file sequentially in chunks of one upload session, sending each chunk as a region of the file. The
+     * modification time of the file guards the remembered progress instead of a checksum of the confirmed bytes.
+     */
+    private void chunkedStore(final String name, FileChannel channel, long lastModified, long length, long chunkSize) throws RestException {
+        final String key = ResumableSessions.key(accessToken, createAbsolutePath(name), length);
+        ResumableSessions.Progress resumed = findResumableSession(name, key, progress -> progress.isOfFile(lastModified));
+        Session session;
+        long offSet;
+        if (resumed != null) {
+            session = new Session();
+            session.setSessionId(resumed.getSessionId());
+            offSet = resumed.getOffset();
+        } else {
+            // Start session
+            int size = (int) Math.min(chunkSize, length);
+            session = sendChunk((chunkOffSet, chunk, chunkLength) ->
+                    startSession(name, SessionType.SEQUENTIAL, chunk, chunkLength), 0, size, regionOf(channel, 0, size));
+            offSet = size;
+            ResumableSessions.rememberFile(key, session.getSessionId(), offSet, lastModified);
+        }
+        final Session started = session;
+        while (length - offSet > chunkSize) {
+            // Add chunk to session
+            int size = (int) chunkSize;
+            sendChunk((chunkOffSet, chunk, chunkLength) -> {
+                appendSession(name, started, chunkOffSet, false, chunk, chunkLength);
+                return null;
+            }, offSet, size, regionOf(channel, offSet, size));
+            offSet += size;
+            ResumableSessions.rememberFile(key, session.getSessionId(), offSet, lastModified);
         }
         // Commit uploader
+        int size = (int) (length - offSet);
+        sendChunk((chunkOffSet, chunk, chunkLength) ->
+                finishSession(name, started, chunkOffSet, chunk, chunkLength), offSet, size, regionOf(channel, offSet, size));
+        ResumableSessions.forget(key);
+    }
+
+    /**
+     * Uploads the chunks of a file in parallel, at most {@code chunkWorkers} at a time, each as a region of the file.
+     */
+    private void concurrentStore(final String name, final FileChannel channel, long length, long chunkSize) throws RestException {
+        final Session session = startSession(name, SessionType.CONCURRENT, new ByteArrayInputStream(new byte[0]), 0);
+        final Semaphore workers = new Semaphore(chunkWorkers);
+        List<Future<Void>> appends = new ArrayList<>();
+        long offSet = 0;
+        try {
+            while (offSet < length) {
+                final int size = (int) Math.min(chunkSize, length - offSet);
+                final boolean last = offSet + size >= length;
+                final long chunkOffSet = offSet;
+                workers.acquire();
+                appends.add(getChunkExecutorService().submit(() -> {
+                    try {
+                        sendChunk((appendOffSet, data, dataLength) -> {
+                            appendSession(name, session, appendOffSet, last, data, dataLength);
+                            return null;
+                        }, chunkOffSet, size, regionOf(channel, chunkOffSet, size));
+                    } finally {
+                        workers.release();
+                    }
+                    return null;
+                }));
+                offSet += size;
+                checkAppends(appends);
+            }
+            for (Future<Void> append : appends) {
+                append.get();
+            }
+        } catch (ExecutionException e) {
+            cancelAppends(appends);
+            Throwable cause = e.getCause();
+            if (cause instanceof RestException) {
+                throw (RestException) cause;
+            }
+            throw new RestException(Messages.exception_store_chunk_continue(name), cause);
+        } catch (InterruptedException e) {
+            cancelAppends(appends);
+            Thread.currentThread().interrupt();
+            throw new RestException(Messages.exception_store_chunk_continue(name), e);
+        }
+        finishSession(name, session, length, new ByteArrayInputStream(new byte[0]), 0);
+    }
+
+    private static ChunkContent regionOf(FileChannel channel, long chunkOffSet, int size) {
+        return start -> new FileRegion(channel, chunkOffSet + start, size - start);
+    }
+
+    private static void checkAppends(List<Future<Void>> appends) throws ExecutionException, InterruptedException {
+        for (Future<Void> append : appends) {
+            if (append.isDone()) {
+                append.get();
+            }
+        }
+    }
+
+    private static void cancelAppends(List<Future<Void>> appends) {
+        for (Future<Void> append : appends) {
+            append.cancel(true);
+        }
+    }
+
+    private Session startSession(String name, String sessionType, InputStream chunk, long size) throws RestException {
+        URL startUrl = getUrl(URL_UPLOAD_START);
+        SessionStart startContent = new SessionStart();
+        startContent.setSessionType(sessionType);
+        JsonObjectRequest<Session> startRequest = requestForUpload(startUrl, startContent, Session.class, chunk, size);
+        try {
+            return startRequest.execute();
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_store_chunk_start(name), e);
+        }
+    }
+
+    private void appendSession(String name, Session session, long offSet, boolean close, InputStream chunk, long size) throws RestException {
+        URL appendUrl = getUrl(URL_UPLOAD_APPEND);
+        SessionAppend appendContent = new SessionAppend();
+        appendContent.cursor.setOffset(offSet);
+        appendContent.cursor.setSessionId(session.getSessionId());
+        appendContent.setClose(close);
+        JsonObjectRequest<ErrorResponse> appendRequest = requestForUpload(appendUrl, appendContent, ErrorResponse.class, chunk, size);
+        try {
+            appendRequest.execute();
+        } catch (IOException e) {
+            throw new RestException(Messages.exception_store_chunk_continue(name), e);
+        }
+    }
+
+    private FileMetadata finishSession(String name, Session session, long offSet, InputStream chunk, long size) throws RestException {
         URL finishUrl = getUrl(URL_UPLOAD_FINISH);
-        chunkStream = new ChunkedInputStream(content, chunkSize);
         SessionFinish finishContent = new SessionFinish();
         finishContent.cursor.setSessionId(session.getSessionId());
         finishContent.cursor.setOffset(offSet);
-        finishContent.commit.setPath(createPath(name));
-        JsonObjectRequest<FileMetadata> finishRequest = requestForUpload(finishUrl, finishContent, FileMetadata.class, chunkStream, length - offSet);
+        finishContent.commit.setPath(createAbsolutePath(name));
+        JsonObjectRequest<FileMetadata> finishRequest = requestForUpload(finishUrl, finishContent, FileMetadata.class, chunk, size);
         try {
-            finishRequest.execute();
+            return finishRequest.execute();
         } catch (IOException e) {
             throw new RestException(Messages.exception_store_chunk_end(name), e);
         }
     }
 
+    private static synchronized ExecutorService getChunkExecutorService() {
+        if (chunkExecutorService == null) {
+            chunkExecutorService = Executors.newCachedThreadPool(
+                    new NamingThreadFactory(new DaemonThreadFactory(), "org.jenkinsci.plugins.publishoverdropbox.domain.DropboxV2"));
+        }
+        return chunkExecutorService;
+    }
+
     @VisibleForTesting
     FolderContent listFilesOfFolder(@Nonnull FolderMetadata folder) throws RestException {
-        return listFilesOfPath(folder.getPathLower());
+        return listFilesOfPath(folder.getPathLower(), false, LIST_LIMIT);
     }
 
-    private FolderContent listFilesOfPath(@Nonnull String path) throws RestException {
+    private FolderContent listFilesOfPath(@Nonnull String path, boolean recursive, int limit) throws RestException {
         URL url = getUrl(URL_LIST_FOLDER);
         ListFolderRequest requestContent = new ListFolderRequest();
         requestContent.setPath(path);
+        requestContent.setRecursive(recursive);
+        requestContent.setLimit(limit);
         JsonObjectRequest<FolderContent> request = requestPostRequestResponse(url, requestContent, FolderContent.class);
 
         final FolderContent content;
@@ -444,6 +1387,32 @@ public class DropboxV2 implements DropboxAdapter {
         return metadata;
     }
 
+    /**
+     * A working folder that is taken for granted. It keeps the case of the path, so folders created by uploads into it
+     * are named as configured.
+     */
+    private FolderMetadata implicitFolder(String relative) {
+        String absolute = StringUtils.removeEnd(createAbsolutePath(relative), PATH_SEPARATOR);
+        FolderMetadata folder = new FolderMetadata();
+        folder.setName(StringUtils.substringAfterLast(absolute, PATH_SEPARATOR));
+        folder.setPathDisplay(absolute);
+        folder.setPathLower(absolute);
+        return folder;
+    }
+
+    /**
+     * Looks up a folder through the metadata cache, so publishers working in the same folders share one request.
+     */
+    private Metadata retrieveFolderMetaData(String relative) throws RestException {
+        String absolute = createAbsolutePath(relative);
+        return metadataCache.get(getAccountId(), absolute, () -> retrieveMetaData(absolute));
+    }
+
+    private String getAccountId() {
+        AccountInfo account = userInfo;
+        return account == null ? null : account.getAccountId();
+    }
+
     private <T> JsonObjectRequest<T> requestForPostUrlClassResponse(URL url, Class<T> classOfT) {
         JsonObjectRequest.Builder<T> builder = new JsonObjectRequest.Builder<>();
         builder.url(url)
@@ -452,7 +1421,8 @@ public class DropboxV2 implements DropboxAdapter {
                 .responseClass(classOfT)
                 .responseErrorClass(ErrorResponse.class)
                 .sign(accessToken)
-                .timeout(timeout);
+                .timeout(timeout)
+                .transport(transport);
 
         return builder.build();
     }
@@ -467,7 +1437,8 @@ public class DropboxV2 implements DropboxAdapter {
                 .responseClass(classOfT)
                 .responseErrorClass(ErrorResponse.class)
                 .sign(accessToken)
-                .timeout(timeout);
+                .timeout(timeout)
+                .transport(transport);
 
         return builder.build();
     }
@@ -477,13 +1448,16 @@ public class DropboxV2 implements DropboxAdapter {
                 .url(url)
                 .gson(gson)
                 .method(POST)
-                .upload(content, APPLICATION_OCTET_STREAM)
+                .upload(content, APPLICATION_OCTET_STREAM, length)
                 .addHeader("Dropbox-API-Arg", gson.toJson(requestContent))
-                .addHeader("Content-Length", Long.toString(length))
                 .responseClass(responseClass)
                 .responseErrorClass(ErrorResponse.class)
                 .sign(accessToken)
-                .timeout(timeout);
+                .timeout(timeout)
+                .transport(transport);
+        if (uploadTuning != null) {
+            builder.transferListener(uploadTuning::transferred);
+        }
 
         return builder.build();
     }
@@ -499,7 +1473,8 @@ public class DropboxV2 implements DropboxAdapter {
         return url;
     }
 
-    private String createAbsolutePath(final String path) {
+    @Override
+    public String createAbsolutePath(@Nonnull final String path) {
         StringBuilder sb = new StringBuilder();
         if (path.startsWith(PATH_SEPARATOR)) {
             // paths starting with / are already absolute
@@ -519,16 +1494,6 @@ public class DropboxV2 implements DropboxAdapter {
         return sb.toString();
     }
 
-    private String createPath(String name) {
-        String path;
-        if (workingFolder.getPathLower().endsWith(PATH_SEPARATOR)) {
-            path = workingFolder.getPathLower() + name;
-        } else {
-            path = workingFolder.getPathLower() + PATH_SEPARATOR + name;
-        }
-        return path;
-    }
-
     /* *
      * Static token helpers
      * */
@@ -567,7 +1532,7 @@ public class DropboxV2 implements DropboxAdapter {
         TokenResponse response;
         try {
             JsonObjectRequest<TokenResponse> request = new JsonObjectRequest.Builder<TokenResponse>()
-                    .gson(new Gson())
+                    .gson(createGson())
                     .responseClass(TokenResponse.class)
                     .url(url)
                     .upload(formBuilder.build(), FormBuilder.CONTENT_TYPE)
@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a region of a file without touching the position of the channel, so the regions of one channel can be sent
+ * concurrently and a failed region can be read again from the file instead of being kept in memory.
+ * <p>
+ * Large regions are mapped into memory on the first read and unmapped on close, so only the regions being sent take
+ * address space. Smaller regions use positional reads, for them a mapping costs more than it saves.
+ * <p>
+ * Closing this stream leaves the channel open for the other regions.
+ */
+class FileRegion extends InputStream {
+
+    static final long MIN_MAPPED_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+    private long position;
+    private ByteBuffer wrapped;
+    private byte[] wrappedArray;
+    private MappedByteBuffer mapped;
+    private boolean closed;
+
+    FileRegion(FileChannel channel, long position, long length) {
+        this.channel = channel;
+        this.start = position;
+        this.position = position;
+        this.end = position + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public synchronized int read(byte[] buffer, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (length == 0) {
+            return 0;
+        }
+        long remaining = end - position;
+        if (remaining <= 0) {
+            return -1;
+        }
+        int read;
+        if (end - start >= MIN_MAPPED_SIZE) {
+            read = readMapped(buffer, offset, (int) Math.min(length, remaining));
+        } else {
+            read = readPositional(buffer, offset, (int) Math.min(length, remaining));
+        }
+        if (read > 0) {
+            position += read;
+        }
+        return read;
+    }
+
+    private int readMapped(byte[] buffer, int offset, int length) throws IOException {
+        if (mapped == null) {
+            // A file that shrank since its length was taken ends the region early instead of faulting on a read
+            long size = Math.min(end, channel.size()) - start;
+            if (size <= 0) {
+                return -1;
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            mapped.position((int) (position - start));
+        }
+        if (!mapped.hasRemaining()) {
+            return -1;
+        }
+        int read = Math.min(length, mapped.remaining());
+        mapped.get(buffer, offset, read);
+        return read;
+    }
+
+    private int readPositional(byte[] buffer, int offset, int length) throws IOException {
+        if (buffer != wrappedArray) {
+            // Callers copy with the same buffer over and over, wrapping it once spares an object per read
+            wrappedArray = buffer;
+            wrapped = ByteBuffer.wrap(buffer);
+        }
+        wrapped.limit(offset + length).position(offset);
+        return channel.read(wrapped, position);
+    }
+
+    @Override
+    public synchronized long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, end - position));
+        position += skipped;
+        if (mapped != null) {
+            mapped.position((int) Math.min(mapped.limit(), position - start));
+        }
+        return skipped;
+    }
+
+    @Override
+    public synchronized int available() {
+        return closed ? 0 : (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    /**
+     * Unmaps the region right away instead of when the garbage collector finds the buffer.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (mapped != null) {
+            MappedByteBuffer unmapped = mapped;
+            mapped = null;
+            DirectBuffers.free(unmapped);
+        }
+    }
+}
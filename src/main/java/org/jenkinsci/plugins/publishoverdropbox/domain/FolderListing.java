@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderContent;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Metadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Iterates over the entries of a folder listing page by page. The next page is requested in the background as soon
+ * as the current one has arrived, and pages already iterated are not kept, so at most two pages are held at a time.
+ */
+public final class FolderListing implements Closeable {
+
+    private static ExecutorService executorService;
+
+    private final String path;
+    private final PageSource source;
+    private List<Metadata> entries = Collections.emptyList();
+    private int index;
+    private Future<FolderContent> pending;
+    private boolean started;
+
+    /**
+     * @param path   folder being listed, for messages
+     * @param source requests the pages
+     */
+    FolderListing(String path, PageSource source) {
+        this.path = path;
+        this.source = source;
+        this.pending = getExecutorService().submit(source::first);
+    }
+
+    /**
+     * @return whether there are more entries, fetching the next page when the current one is done
+     */
+    public boolean hasNext() throws RestException {
+        while (index >= entries.size() || entries.get(index) == null) {
+            if (index < entries.size()) {
+                // Deleted entries are read as null, a continued listing reports them for the deletes made while listing
+                index++;
+                continue;
+            }
+            if (pending == null) {
+                return false;
+            }
+            FolderContent page = await(pending);
+            pending = null;
+            started = true;
+            if (page.hasMore() && page.getCursor() != null) {
+                String cursor = page.getCursor();
+                pending = getExecutorService().submit(() -> source.next(cursor));
+            }
+            entries = page.getEntries() == null ? Collections.emptyList() : page.getEntries();
+            index = 0;
+        }
+        return true;
+    }
+
+    public Metadata next() throws RestException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return entries.get(index++);
+    }
+
+    /**
+     * Stops fetching pages that were not asked for yet.
+     */
+    @Override
+    public void close() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+        entries = Collections.emptyList();
+    }
+
+    private FolderContent await(Future<FolderContent> page) throws RestException {
+        try {
+            return page.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RestException) {
+                throw (RestException) cause;
+            }
+            throw new RestException(started ? Messages.exception_dropbox_folder_list_cursor()
+                    : Messages.exception_dropbox_folder_list(path), cause);
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new RestException(Messages.exception_dropbox_folder_list_cursor(), e);
+        }
+    }
+
+    private static synchronized ExecutorService getExecutorService() {
+        if (executorService == null) {
+            executorService = Executors.newCachedThreadPool(
+                    new NamingThreadFactory(new DaemonThreadFactory(), "org.jenkinsci.plugins.publishoverdropbox.domain.FolderListing"));
+        }
+        return executorService;
+    }
+
+    /**
+     * Requests the pages of one listing.
+     */
+    interface PageSource {
+        FolderContent first() throws RestException;
+
+        FolderContent next(String cursor) throws RestException;
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import hudson.ProxyConfiguration;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Transport on the HTTP client of Java 11 and later, which negotiates HTTP/2 and then multiplexes all concurrent
+ * requests to a host over a single connection. The plugin still targets Java 8, so the client is reached through
+ * reflection. Requests go through the fallback transport when the running JVM has no such client, when the Jenkins
+ * proxy needs credentials or when the client fails in an unexpected way.
+ */
+final class Http2Transport implements HttpTransport {
+
+    private static final Log LOG = LogFactory.getLog(Http2Transport.class);
+    /**
+     * Slowest upload speed, in bytes per second, that is expected to still finish within the request timeout
+     */
+    private static final long MIN_UPLOAD_RATE = 64 * 1024;
+    private static Client client;
+    private static boolean unavailable;
+
+    private final Client http2;
+    private final HttpTransport fallback;
+
+    private Http2Transport(Client http2, HttpTransport fallback) {
+        this.http2 = http2;
+        this.fallback = fallback;
+    }
+
+    /**
+     * @param fallback transport for requests the HTTP/2 client can not send
+     * @return a transport preferring HTTP/2, or the fallback itself when the running JVM does not support it
+     */
+    static HttpTransport wrap(HttpTransport fallback) {
+        Client http2 = getClient();
+        return http2 == null ? fallback : new Http2Transport(http2, fallback);
+    }
+
+    private static synchronized Client getClient() {
+        if (client == null && !unavailable) {
+            try {
+                client = new Client();
+            } catch (ClassNotFoundException e) {
+                // Before Java 11, there is no client to try again later
+                unavailable = true;
+                LOG.debug("HTTP/2 client not available, using HTTP/1.1", e);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Building the client again fails the same way, so every request would repeat this warning
+                unavailable = true;
+                LOG.warn(Messages.exception_http2_failed(), e);
+            }
+        }
+        return client;
+    }
+
+    @Override
+    public Response execute(String method, URL url, Map<String, String> headers, InputStream body, long contentLength,
+                            int timeout) throws IOException {
+        if (needsProxyCredentials()) {
+            return fallback.execute(method, url, headers, body, contentLength, timeout);
+        }
+        try {
+            return http2.send(method, url, headers, body, contentLength, timeout);
+        } catch (ReflectiveOperationException e) {
+            // The request never left, so it can still go through the fallback
+            LOG.warn(Messages.exception_http2_failed(), e);
+            return fallback.execute(method, url, headers, body, contentLength, timeout);
+        }
+    }
+
+    private static ProxyConfiguration currentProxy() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins == null ? null : jenkins.proxy;
+    }
+
+    private static boolean needsProxyCredentials() {
+        ProxyConfiguration proxy = currentProxy();
+        return proxy != null && proxy.getUserName() != null;
+    }
+
+    /**
+     * Routes through the Jenkins proxy, unless the host matches one of its no proxy patterns.
+     */
+    private static final class JenkinsProxySelector extends ProxySelector {
+        @Override
+        public List<Proxy> select(URI uri) {
+            ProxyConfiguration proxy = currentProxy();
+            return Collections.singletonList(proxy == null ? Proxy.NO_PROXY : proxy.createProxy(uri.getHost()));
+        }
+
+        @Override
+        public void connectFailed(URI uri, SocketAddress address, IOException e) {
+            // Nothing to remember, the Jenkins proxy configuration decides
+        }
+    }
+
+    /**
+     * The reflective view on {@code java.net.http.HttpClient} and the types around it.
+     */
+    private static final class Client {
+        private final Object httpClient;
+        private final Method send;
+        private final Method newRequest;
+        private final Method header;
+        private final Method requestTimeout;
+        private final Method requestMethod;
+        private final Method build;
+        private final Method noBody;
+        private final Method ofInputStream;
+        private final Method fromPublisher;
+        private final Object bodyHandler;
+        private final Method statusCode;
+        private final Method responseBody;
+
+        private Client() throws ReflectiveOperationException {
+            Class<?> clientClass = Class.forName("java.net.http.HttpClient");
+            Class<?> clientBuilderClass = Class.forName("java.net.http.HttpClient$Builder");
+            Class<?> versionClass = Class.forName("java.net.http.HttpClient$Version");
+            Class<?> requestClass = Class.forName("java.net.http.HttpRequest");
+            Class<?> requestBuilderClass = Class.forName("java.net.http.HttpRequest$Builder");
+            Class<?> publisherClass = Class.forName("java.net.http.HttpRequest$BodyPublisher");
+            Class<?> publishersClass = Class.forName("java.net.http.HttpRequest$BodyPublishers");
+            Class<?> responseClass = Class.forName("java.net.http.HttpResponse");
+            Class<?> handlerClass = Class.forName("java.net.http.HttpResponse$BodyHandler");
+            Class<?> handlersClass = Class.forName("java.net.http.HttpResponse$BodyHandlers");
+            Class<?> flowPublisherClass = Class.forName("java.util.concurrent.Flow$Publisher");
+
+            Executor executor = Executors.newCachedThreadPool(
+                    new NamingThreadFactory(new DaemonThreadFactory(), "org.jenkinsci.plugins.publishoverdropbox.domain.Http2Transport"));
+            Object builder = clientClass.getMethod("newBuilder").invoke(null);
+            clientBuilderClass.getMethod("version", versionClass).invoke(builder, enumValue(versionClass, "HTTP_2"));
+            clientBuilderClass.getMethod("executor", Executor.class).invoke(builder, executor);
+            clientBuilderClass.getMethod("proxy", ProxySelector.class).invoke(builder, new JenkinsProxySelector());
+            httpClient = clientBuilderClass.getMethod("build").invoke(builder);
+
+            send = clientClass.getMethod("send", requestClass, handlerClass);
+            newRequest = requestClass.getMethod("newBuilder", URI.class);
+            header = requestBuilderClass.getMethod("header", String.class, String.class);
+            requestTimeout = requestBuilderClass.getMethod("timeout", Duration.class);
+            requestMethod = requestBuilderClass.getMethod("method", String.class, publisherClass);
+            build = requestBuilderClass.getMethod("build");
+            noBody = publishersClass.getMethod("noBody");
+            ofInputStream = publishersClass.getMethod("ofInputStream", Supplier.class);
+            fromPublisher = publishersClass.getMethod("fromPublisher", flowPublisherClass, long.class);
+            bodyHandler = handlersClass.getMethod("ofInputStream").invoke(null);
+            statusCode = responseClass.getMethod("statusCode");
+            responseBody = responseClass.getMethod("body");
+        }
+
+        /**
+         * Unlike a read timeout, the request timeout also covers sending the body, so a known length extends it by the
+         * time needed at the slowest expected speed. A body of unknown length gets the bare timeout.
+         */
+        private static long timeoutFor(int timeout, long contentLength) {
+            return contentLength > 0 ? timeout + 1000 * contentLength / MIN_UPLOAD_RATE : timeout;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Object enumValue(Class<?> enumClass, String name) {
+            return Enum.valueOf(enumClass.asSubclass(Enum.class), name);
+        }
+
+        private Response send(String method, URL url, Map<String, String> headers, InputStream body,
+                              long contentLength, int timeout) throws IOException, ReflectiveOperationException {
+            Object builder;
+            try {
+                builder = newRequest.invoke(null, url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                header.invoke(builder, entry.getKey(), entry.getValue());
+            }
+            Object publisher;
+            TimedInputStream timedBody = null;
+            if (body == null) {
+                publisher = noBody.invoke(null);
+            } else {
+                timedBody = new TimedInputStream(body, contentLength);
+                final InputStream content = timedBody;
+                Supplier<InputStream> supplier = () -> content;
+                publisher = ofInputStream.invoke(null, supplier);
+                if (contentLength >= 0) {
+                    publisher = fromPublisher.invoke(null, publisher, contentLength);
+                }
+            }
+            if (timeout > 0) {
+                requestTimeout.invoke(builder, Duration.ofMillis(timeoutFor(timeout, body == null ? 0 : contentLength)));
+            }
+            requestMethod.invoke(builder, method, publisher);
+            Object request = build.invoke(builder);
+
+            Object response;
+            try {
+                response = send.invoke(httpClient, request, bodyHandler);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw (InterruptedIOException) new InterruptedIOException().initCause(cause);
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            }
+            return new Http2Response((Integer) statusCode.invoke(response), (InputStream) responseBody.invoke(response),
+                    timedBody == null ? 0 : timedBody.getSendNanos());
+        }
+    }
+
+    /**
+     * Measures the time between the first and the last read of the request body, the client reads it only as fast
+     * as the connection takes it.
+     */
+    private static final class TimedInputStream extends FilterInputStream {
+        private final long length;
+        private long read;
+        private volatile long start;
+        private volatile long end;
+
+        private TimedInputStream(InputStream in, long length) {
+            super(in);
+            this.length = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            if (start == 0) {
+                start = System.nanoTime();
+            }
+            int bytes;
+            if (length >= 0) {
+                long remaining = length - read;
+                bytes = remaining <= 0 ? -1 : super.read(buffer, offset, (int) Math.min(count, remaining));
+            } else {
+                bytes = super.read(buffer, offset, count);
+            }
+            if (bytes > 0) {
+                read += bytes;
+            }
+            if (bytes == -1 || read == length) {
+                end = System.nanoTime();
+            }
+            return bytes;
+        }
+
+        private long getSendNanos() {
+            return end == 0 ? 0 : end - start;
+        }
+    }
+
+    private static final class Http2Response implements Response {
+        private final int code;
+        private final InputStream content;
+        private final long sendNanos;
+
+        private Http2Response(int code, InputStream content, long sendNanos) {
+            this.code = code;
+            this.content = new DrainingInputStream(content);
+            this.sendNanos = sendNanos;
+        }
+
+        @Override
+        public int getCode() {
+            return code;
+        }
+
+        @Override
+        public String getMessage() {
+            // HTTP/2 has no reason phrase
+            return "";
+        }
+
+        @Override
+        public InputStream getContent() {
+            return content;
+        }
+
+        @Override
+        public long getSendNanos() {
+            return sendNanos;
+        }
+
+        @Override
+        public void close() throws IOException {
+            content.close();
+        }
+    }
+
+    /**
+     * Reads the rest of the response body on close, which keeps the connection usable for later requests.
+     */
+    private static final class DrainingInputStream extends FilterInputStream {
+        private boolean closed;
+
+        private DrainingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                try {
+                    IOUtils.skip(in, Long.MAX_VALUE);
+                } finally {
+                    in.close();
+                }
+            }
+        }
+    }
+}
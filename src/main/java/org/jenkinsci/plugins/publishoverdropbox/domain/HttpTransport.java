@@ -0,0 +1,67 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Sends the HTTP requests of {@link JsonObjectRequest}.
+ */
+interface HttpTransport {
+
+    long UNKNOWN_LENGTH = -1;
+
+    /**
+     * @param method        HTTP method
+     * @param url           address of the request
+     * @param headers       request headers, already encoded
+     * @param body          content of the request, null to send no body
+     * @param contentLength exact size of the body, {@link #UNKNOWN_LENGTH} to stream it chunked
+     * @param timeout       connect and read timeout in milliseconds
+     * @return the response, to be closed to release the connection
+     */
+    Response execute(String method, URL url, Map<String, String> headers, InputStream body, long contentLength,
+                     int timeout) throws IOException;
+
+    interface Response extends Closeable {
+
+        int getCode() throws IOException;
+
+        String getMessage() throws IOException;
+
+        /**
+         * @return the body of the response, or of the error response, null when there is none
+         */
+        InputStream getContent() throws IOException;
+
+        /**
+         * @return time spent sending the request body in nanoseconds
+         */
+        long getSendNanos();
+    }
+}
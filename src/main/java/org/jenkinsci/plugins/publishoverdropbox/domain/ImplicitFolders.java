@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.BatchEntryResult;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of the folders a publisher changes into when folders are not created up front. Uploads and commits
+ * create the parent folders of the files they write, only the folders that end up empty are created once the
+ * transfers end, with one create_folder_batch call per {@value DropboxV2#MAX_BATCH_ENTRIES} folders.
+ */
+class ImplicitFolders {
+
+    // Failure of a folder that already exists
+    private static final String EXISTING_FOLDER = "path/conflict/folder";
+
+    private final DropboxAdapter dropbox;
+    // Lower case path of each folder changed into, to the path as written
+    private final Map<String, String> entered = new LinkedHashMap<>();
+    // Lower case paths of the folders that get created by the files and folders written in them
+    private final Set<String> filled = new HashSet<>();
+
+    ImplicitFolders(DropboxAdapter dropbox) {
+        this.dropbox = dropbox;
+    }
+
+    /**
+     * @param folder absolute path of a folder changed into
+     */
+    synchronized void enter(String folder) {
+        String key = key(folder);
+        if (!key.isEmpty() && !entered.containsKey(key)) {
+            entered.put(key, StringUtils.removeEnd(folder, "/"));
+            fillParents(key);
+        }
+    }
+
+    /**
+     * @param path absolute path of a file written, or skipped because it is already there
+     */
+    synchronized void write(String path) {
+        fillParents(key(path));
+    }
+
+    /**
+     * Creates the folders that were changed into but nothing was written in.
+     *
+     * @return messages of the folders that failed to be created, empty when all succeeded
+     */
+    List<String> createEmpty() {
+        List<String> failures = new ArrayList<>();
+        List<String> empty = takeEmpty();
+        for (int start = 0; start < empty.size(); start += DropboxV2.MAX_BATCH_ENTRIES) {
+            List<String> batch = empty.subList(start, Math.min(empty.size(), start + DropboxV2.MAX_BATCH_ENTRIES));
+            try {
+                List<BatchEntryResult> results = dropbox.createFolderBatch(batch);
+                for (int i = 0; i < batch.size(); i++) {
+                    BatchEntryResult result = results.get(i);
+                    if (!result.isSuccess() && !EXISTING_FOLDER.equals(result.getFailureTag())) {
+                        failures.add(Messages.exception_bap_makeDirectory_named(batch.get(i), result.getFailureTag()));
+                    }
+                }
+            } catch (RestException e) {
+                for (String folder : batch) {
+                    failures.add(Messages.exception_bap_makeDirectory_named(folder, e.getMessage()));
+                }
+            }
+        }
+
+        return failures;
+    }
+
+    private synchronized List<String> takeEmpty() {
+        List<String> empty = new ArrayList<>();
+        for (Map.Entry<String, String> folder : entered.entrySet()) {
+            if (!filled.contains(folder.getKey())) {
+                empty.add(folder.getValue());
+            }
+        }
+        entered.clear();
+        filled.clear();
+        return empty;
+    }
+
+    private void fillParents(String key) {
+        // Once a parent is filled, so are all folders above it
+        int end = key.lastIndexOf('/');
+        while (end > 0 && filled.add(key.substring(0, end))) {
+            end = key.lastIndexOf('/', end - 1);
+        }
+    }
+
+    private static String key(String path) {
+        return StringUtils.removeEnd(path.toLowerCase(Locale.ROOT), "/");
+    }
+}
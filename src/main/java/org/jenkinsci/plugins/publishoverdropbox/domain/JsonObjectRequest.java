@@ -26,15 +26,15 @@ package org.jenkinsci.plugins.publishoverdropbox.domain;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
-import hudson.ProxyConfiguration;
+import jenkins.util.SystemProperties;
 import org.apache.commons.io.IOUtils;
 import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
 
 import javax.annotation.Nonnull;
 import java.io.*;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 class JsonObjectRequest<T> {
@@ -45,9 +45,13 @@ class JsonObjectRequest<T> {
     private static final String PARAM_AUTHORIZATION = "Authorization";
     private static final String VALUE_BEARER = "Bearer ";
     private static final int TIMEOUT_30_SECONDS = 30000;
+    private static final String PROPERTY_POOLED = JsonObjectRequest.class.getName() + ".pooledTransport";
+    private static final String PROPERTY_HTTP2 = JsonObjectRequest.class.getName() + ".http2Transport";
+    private static final long UNKNOWN_LENGTH = HttpTransport.UNKNOWN_LENGTH;
 
     private URL url;
     private InputStream bodyStream;
+    private long contentLength = UNKNOWN_LENGTH;
     private String contentType;
     private Gson gson;
     private Class<T> classOfT;
@@ -56,9 +60,18 @@ class JsonObjectRequest<T> {
     private Map<String, String> headers = new HashMap<>();
     private Class classOfError;
     private Method method = Method.GET;
+    private TransferListener transferListener;
+    private HttpTransport transport;
 
     enum Method {POST, GET, PUT, DELETE}
 
+    /**
+     * Receives the timing of each successful upload, used to tune the size of later uploads.
+     */
+    interface TransferListener {
+        void transferred(long bytes, long sendNanos, long waitNanos);
+    }
+
     static class Builder<T> {
         JsonObjectRequest<T> request;
 
@@ -92,10 +105,26 @@ class JsonObjectRequest<T> {
             return this;
         }
 
+        /**
+         * Upload a stream of known size, the body is streamed to the connection instead of being buffered in memory.
+         *
+         * @param content       body of the request
+         * @param contentType   mime type of the body
+         * @param contentLength exact number of bytes the content will provide
+         */
+        public Builder<T> upload(InputStream content, String contentType, long contentLength) {
+            request.contentType = contentType;
+            request.bodyStream = content;
+            request.contentLength = contentLength;
+            return this;
+        }
+
         public Builder<T> upload(String content, String contentType) {
             request.contentType = contentType;
             try {
-                request.bodyStream = new ByteArrayInputStream(content.getBytes(UTF_8));
+                byte[] bytes = content.getBytes(UTF_8);
+                request.bodyStream = new ByteArrayInputStream(bytes);
+                request.contentLength = bytes.length;
             } catch (UnsupportedEncodingException e) {
                 // Ignored
             }
@@ -126,7 +155,20 @@ class JsonObjectRequest<T> {
             return this;
         }
 
+        public Builder<T> transferListener(TransferListener listener) {
+            request.transferListener = listener;
+            return this;
+        }
+
+        public Builder<T> transport(HttpTransport transport) {
+            request.transport = transport;
+            return this;
+        }
+
         public JsonObjectRequest<T> build() {
+            if (request.transport == null) {
+                request.transport = defaultTransport();
+            }
             return request;
         }
     }
@@ -134,71 +176,63 @@ class JsonObjectRequest<T> {
     private JsonObjectRequest() {
     }
 
+    /**
+     * @return the shared connection pool, or the JDK connection when the pool is disabled with a system property.
+     * HTTP/2 is used in front of it only when enabled with a system property and supported by the JVM.
+     */
+    static HttpTransport defaultTransport() {
+        HttpTransport transport = SystemProperties.getBoolean(PROPERTY_POOLED, true)
+                ? PooledHttpTransport.getInstance() : new UrlConnectionTransport();
+        if (SystemProperties.getBoolean(PROPERTY_HTTP2, false)) {
+            transport = Http2Transport.wrap(transport);
+        }
+        return transport;
+    }
+
     public T execute() throws IOException {
         T model = null;
-        HttpURLConnection connection;
-        InputStream inputStream = null;
-        InputStream errorStream = null;
-        try {
-            // Prepare
-            connection = openConnection(url);
-            connection.setReadTimeout(timeout);
-            connection.setConnectTimeout(timeout);
-            for (Map.Entry<String, String> entry : headers.entrySet()) {
-                final String asciiKey = httpHeaderEncode(entry.getKey());
-                final String asciiHeader = httpHeaderEncode(entry.getValue());
-                connection.addRequestProperty(asciiKey, asciiHeader);
-            }
-            if (bearerToken != null) {
-                signWithBearerToken(connection);
-            }
-            connection.setRequestMethod(method.name());
-            connection.setDoOutput(false);
-            boolean responseBody = method == Method.GET || method == Method.POST;
-            connection.setDoInput(responseBody);
-
-            // Upload
-            if (bodyStream != null) {
-                connection.setDoOutput(true);
-                upload(connection);
+        Map<String, String> requestHeaders = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            requestHeaders.put(httpHeaderEncode(entry.getKey()), httpHeaderEncode(entry.getValue()));
+        }
+        if (bearerToken != null) {
+            requestHeaders.put(PARAM_AUTHORIZATION, VALUE_BEARER + bearerToken);
+        }
+        if (bodyStream != null) {
+            // Leaving content type null will result in malformed requests, not setting it will result in an incorrect value
+            requestHeaders.put(HEADER_CONTENT_TYPE, contentType != null ? contentType : OCTET_STREAM);
+        }
+        long start = System.nanoTime();
+        try (HttpTransport.Response response = transport.execute(method.name(), url, requestHeaders, bodyStream, contentLength, timeout)) {
+            int responseCode = response.getCode();
+            if (transferListener != null && contentLength > 0 && responseCode >= 200 && responseCode <= 299) {
+                long sendNanos = response.getSendNanos();
+                transferListener.transferred(contentLength, sendNanos, System.nanoTime() - start - sendNanos);
             }
-
-            // Response
-            int responseCode = connection.getResponseCode();
-            String responseMessage = connection.getResponseMessage();
             if (responseCode < 200 || responseCode > 299) {
-                errorStream = connection.getErrorStream();
-                Object errorResponse;
+                InputStream errorStream = response.getContent();
+                Object errorResponse = errorStream == null ? "" : IOUtils.toString(errorStream, UTF_8);
                 if (classOfError != null) {
-                    errorResponse = IOUtils.toString(errorStream);
                     try {
                         errorResponse = readModel(gson, (String) errorResponse, classOfError);
                     } catch (JsonSyntaxException ignored) {
                     }
-                } else {
-                    errorResponse = IOUtils.toString(errorStream);
                 }
-                throw new IOException(errorResponse.toString(), new IOException(Messages.exception_http(responseCode, responseMessage)));
+                throw new ResponseException(String.valueOf(errorResponse), responseCode, errorResponse,
+                        new IOException(Messages.exception_http(responseCode, response.getMessage())));
             }
 
             // Download
-            if (responseBody) {
-                inputStream = connection.getInputStream();
-                model = readModel(gson, inputStream, classOfT);
+            if (method == Method.GET || method == Method.POST) {
+                model = readModel(gson, response.getContent(), classOfT);
             }
         } finally {
-            closeQuietly(errorStream);
-            closeQuietly(inputStream);
+            closeQuietly(bodyStream);
         }
 
         return model;
     }
 
-    private HttpURLConnection openConnection(URL url) throws IOException {
-        return (HttpURLConnection) ProxyConfiguration.open(url);
-
-    }
-
     public static String httpHeaderEncode(String text) {
         StringBuilder sb = new StringBuilder(text.length());
         for (int i = 0; i < text.length(); i++) {
@@ -213,29 +247,6 @@ class JsonObjectRequest<T> {
         return sb.toString();
     }
 
-    private void upload(HttpURLConnection connection) throws IOException {
-        if (contentType != null) {
-            connection.addRequestProperty(HEADER_CONTENT_TYPE, contentType);
-        } else {
-            // Leaving content type null will result in malformed requests, not setting it will result in an incorrect value
-            connection.addRequestProperty(HEADER_CONTENT_TYPE, OCTET_STREAM);
-        }
-        DataOutputStream outputStream = null;
-        try {
-            OutputStream stream = connection.getOutputStream();
-            outputStream = new DataOutputStream(stream);
-            IOUtils.copyLarge(bodyStream, outputStream);
-            outputStream.flush();
-        } finally {
-            closeQuietly(bodyStream);
-            closeQuietly(outputStream);
-        }
-    }
-
-    private void signWithBearerToken(HttpURLConnection connection) {
-        connection.setRequestProperty(PARAM_AUTHORIZATION, VALUE_BEARER + bearerToken);
-    }
-
     private static <MODEL> MODEL readModel(Gson gson, InputStream inputStream, Class<MODEL> classOfModel) throws IOException {
         MODEL model = null;
         if (inputStream != null && classOfModel != null) {
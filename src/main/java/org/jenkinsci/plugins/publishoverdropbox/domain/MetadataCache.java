@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Metadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metadata of remote paths looked up recently, shared by all publishers in the JVM. Entries are kept per account for
+ * a limited time, the least recently used go first when the cache is full. Concurrent lookups of a path that is not
+ * cached wait for a single request.
+ * <p>
+ * Only found paths are cached. The plugin forgets the paths it deletes, changes made by others show
+ * once an entry expires.
+ */
+final class MetadataCache {
+
+    private static final String PROPERTY_PREFIX = MetadataCache.class.getName();
+    private static final MetadataCache INSTANCE = new MetadataCache(
+            TimeUnit.SECONDS.toNanos(SystemProperties.getInteger(PROPERTY_PREFIX + ".ttl", 60)),
+            SystemProperties.getInteger(PROPERTY_PREFIX + ".maxEntries", 10000));
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Cached> entries;
+    private final Map<String, CompletableFuture<Metadata>> lookups = new ConcurrentHashMap<>();
+    // Counts invalidations, a lookup that overlapped one is not cached
+    private long generation;
+
+    /**
+     * @param ttlNanos   time an entry is used, 0 disables the cache
+     * @param maxEntries number of entries kept
+     */
+    MetadataCache(long ttlNanos, int maxEntries) {
+        this.ttlNanos = ttlNanos;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > MetadataCache.this.maxEntries;
+            }
+        };
+    }
+
+    static MetadataCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param account the account the path belongs to
+     * @param path    absolute path in any case
+     * @param loader  retrieves the metadata when it is not cached
+     * @return the cached or loaded metadata
+     */
+    Metadata get(String account, String path, Loader loader) throws RestException {
+        if (ttlNanos <= 0 || account == null) {
+            return loader.load();
+        }
+        String key = key(account, path);
+        Metadata cached = getCached(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<Metadata> lookup = new CompletableFuture<>();
+        CompletableFuture<Metadata> running = lookups.putIfAbsent(key, lookup);
+        if (running != null) {
+            return await(running);
+        }
+        long started = getGeneration();
+        try {
+            Metadata metadata = loader.load();
+            synchronized (entries) {
+                if (generation == started) {
+                    store(key, metadata);
+                }
+            }
+            lookup.complete(metadata);
+            return metadata;
+        } catch (RestException | RuntimeException e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            lookups.remove(key, lookup);
+        }
+    }
+
+    /**
+     * Caches metadata the plugin learned from one of its own requests.
+     */
+    void put(String account, Metadata metadata) {
+        if (ttlNanos > 0 && account != null && metadata != null && metadata.getPathLower() != null) {
+            store(key(account, metadata.getPathLower()), metadata);
+        }
+    }
+
+    /**
+     * Forgets a path and everything below it.
+     */
+    void invalidate(String account, String path) {
+        if (ttlNanos <= 0 || account == null) {
+            return;
+        }
+        String key = key(account, path);
+        String below = key.endsWith("/") ? key : key + "/";
+        synchronized (entries) {
+            generation++;
+            for (Iterator<String> iterator = entries.keySet().iterator(); iterator.hasNext(); ) {
+                String cached = iterator.next();
+                if (cached.equals(key) || cached.startsWith(below)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private long getGeneration() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    private Metadata getCached(String key) {
+        synchronized (entries) {
+            Cached entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.created > ttlNanos) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.metadata;
+        }
+    }
+
+    private void store(String key, Metadata metadata) {
+        synchronized (entries) {
+            entries.put(key, new Cached(metadata, System.nanoTime()));
+        }
+    }
+
+    private static Metadata await(CompletableFuture<Metadata> lookup) throws RestException {
+        try {
+            return lookup.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RestException) {
+                throw (RestException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RestException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestException(e);
+        }
+    }
+
+    private static String key(String account, String path) {
+        return account + ':' + path.toLowerCase(Locale.ROOT);
+    }
+
+    interface Loader {
+        Metadata load() throws RestException;
+    }
+
+    private static final class Cached {
+        private final Metadata metadata;
+        private final long created;
+
+        private Cached(Metadata metadata, long created) {
+            this.metadata = metadata;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.plugins.publish_over.BapPublisherException;
+import org.jenkinsci.plugins.publishoverdropbox.impl.Messages;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs uploads on a fixed number of worker threads. Failures are collected per file and reported when the
+ * outstanding uploads are awaited, or on the next submit so a failing transfer stops early. A submit waits while two
+ * uploads per worker are pending, so a large publish does not queue all its files up front.
+ */
+class ParallelUploader {
+
+    private final int workers;
+    private final List<Upload> uploads = new LinkedList<>();
+    private final List<String> failures = new ArrayList<>();
+    private ExecutorService executorService;
+
+    interface Task {
+        void upload() throws Exception;
+    }
+
+    ParallelUploader(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    int getWorkers() {
+        return workers;
+    }
+
+    void submit(String name, final Task task) {
+        collectFinished();
+        awaitPendingBelow(workers * 2);
+        throwOnFailure();
+        Future<?> future = getExecutorService().submit(() -> {
+            task.upload();
+            return null;
+        });
+        uploads.add(new Upload(name, future));
+    }
+
+    /**
+     * Wait until all submitted uploads have finished.
+     *
+     * @return messages of the failed uploads, empty when all succeeded
+     */
+    List<String> awaitCompletion() {
+        try {
+            for (Upload upload : uploads) {
+                await(upload);
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new BapPublisherException(Messages.exception_bap_transferFile(e.getMessage()), e);
+        } finally {
+            uploads.clear();
+        }
+        List<String> result = new ArrayList<>(failures);
+        failures.clear();
+        return result;
+    }
+
+    void cancel() {
+        for (Upload upload : uploads) {
+            upload.future.cancel(true);
+        }
+        uploads.clear();
+    }
+
+    void shutdown() {
+        cancel();
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+    }
+
+    private void collectFinished() {
+        for (Upload upload : new ArrayList<>(uploads)) {
+            if (upload.future.isDone()) {
+                try {
+                    await(upload);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                uploads.remove(upload);
+            }
+        }
+    }
+
+    private void awaitPendingBelow(int pending) {
+        try {
+            while (uploads.size() >= pending) {
+                Upload oldest = uploads.get(0);
+                await(oldest);
+                uploads.remove(oldest);
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new BapPublisherException(Messages.exception_bap_transferFile(e.getMessage()), e);
+        }
+    }
+
+    private void await(Upload upload) throws InterruptedException {
+        try {
+            upload.future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            failures.add(Messages.exception_bap_transferFile_named(upload.name, cause.getMessage()));
+        }
+    }
+
+    private void throwOnFailure() {
+        if (!failures.isEmpty()) {
+            cancel();
+            String first = failures.get(0);
+            failures.clear();
+            throw new BapPublisherException(first);
+        }
+    }
+
+    private synchronized ExecutorService getExecutorService() {
+        if (executorService == null) {
+            executorService = Executors.newFixedThreadPool(workers,
+                    new NamingThreadFactory(new DaemonThreadFactory(), "org.jenkinsci.plugins.publishoverdropbox.domain.ParallelUploader"));
+        }
+        return executorService;
+    }
+
+    private static class Upload {
+        private final String name;
+        private final Future<?> future;
+
+        Upload(String name, Future<?> future) {
+            this.name = name;
+            this.future = future;
+        }
+    }
+}
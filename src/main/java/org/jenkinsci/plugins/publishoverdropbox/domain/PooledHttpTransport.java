@@ -0,0 +1,331 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import hudson.ProxyConfiguration;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.Credentials;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultRoutePlanner;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport with an explicit pool of keep-alive connections shared by all requests in the JVM. Connections are
+ * limited per host, evicted after being idle and share one TLS context so new connections resume earlier TLS
+ * sessions. Requests go through the proxy configured in Jenkins.
+ */
+final class PooledHttpTransport implements HttpTransport {
+
+    private static final int MAX_PER_HOST = SystemProperties.getInteger(PooledHttpTransport.class.getName() + ".maxPerHost", 20);
+    private static final int MAX_TOTAL = SystemProperties.getInteger(PooledHttpTransport.class.getName() + ".maxTotal", 4 * MAX_PER_HOST);
+    private static final long IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    private static final int VALIDATE_AFTER_INACTIVITY = 2000;
+    private static final int UPLOAD_BUFFER_SIZE = 64 * 1024;
+    private static PooledHttpTransport instance;
+
+    private CountingConnectionManager connectionManager;
+    private CloseableHttpClient client;
+
+    private PooledHttpTransport() {
+    }
+
+    static synchronized PooledHttpTransport getInstance() {
+        if (instance == null) {
+            instance = new PooledHttpTransport();
+        }
+        return instance;
+    }
+
+    /**
+     * @return whether any request went through the pool yet
+     */
+    static synchronized boolean isStarted() {
+        return instance != null && instance.isOpen();
+    }
+
+    private synchronized boolean isOpen() {
+        return client != null;
+    }
+
+    /**
+     * Opens the pool with the first request, so a transport that only stands by as fallback holds no connections or
+     * eviction thread.
+     */
+    private synchronized CloseableHttpClient getClient() {
+        if (client != null) {
+            return client;
+        }
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(SSLContexts.createSystemDefault()))
+                .build();
+        connectionManager = new CountingConnectionManager(socketFactories);
+        connectionManager.setDefaultMaxPerRoute(MAX_PER_HOST);
+        connectionManager.setMaxTotal(MAX_TOTAL);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+        client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setRoutePlanner(new JenkinsProxyRoutePlanner())
+                .setDefaultCredentialsProvider(new JenkinsProxyCredentialsProvider())
+                .evictIdleConnections(IDLE_TIMEOUT, TimeUnit.MILLISECONDS)
+                .evictExpiredConnections()
+                .disableAutomaticRetries()
+                .build();
+        return client;
+    }
+
+    @Override
+    public Response execute(String method, URL url, Map<String, String> headers, InputStream body, long contentLength,
+                            int timeout) throws IOException {
+        RequestConfig config = RequestConfig.custom()
+                .setConnectTimeout(timeout)
+                .setSocketTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
+                .build();
+        RequestBuilder request;
+        try {
+            request = RequestBuilder.create(method).setUri(url.toURI()).setConfig(config);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            request.addHeader(entry.getKey(), entry.getValue());
+        }
+        StreamEntity entity = null;
+        if (body != null) {
+            entity = new StreamEntity(body, contentLength);
+            request.setEntity(entity);
+        }
+
+        return new PooledResponse(getClient().execute(request.build()), entity);
+    }
+
+    /**
+     * @return number of requests that reused a pooled connection
+     */
+    synchronized long getPoolHits() {
+        return connectionManager == null ? 0 : connectionManager.leased.get() - connectionManager.opened.get();
+    }
+
+    /**
+     * @return number of requests that opened a new connection
+     */
+    synchronized long getPoolMisses() {
+        return connectionManager == null ? 0 : connectionManager.opened.get();
+    }
+
+    private static ProxyConfiguration currentProxy() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins == null ? null : jenkins.proxy;
+    }
+
+    private static final class CountingConnectionManager extends PoolingHttpClientConnectionManager {
+        private final AtomicLong leased = new AtomicLong();
+        private final AtomicLong opened = new AtomicLong();
+
+        private CountingConnectionManager(Registry<ConnectionSocketFactory> socketFactories) {
+            super(socketFactories);
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            leased.incrementAndGet();
+            return super.requestConnection(route, state);
+        }
+
+        @Override
+        public void connect(HttpClientConnection connection, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+            // Only called for connections that did not come from the pool
+            opened.incrementAndGet();
+            super.connect(connection, route, connectTimeout, context);
+        }
+    }
+
+    /**
+     * Routes through the Jenkins proxy, unless the host matches one of its no proxy patterns.
+     */
+    private static final class JenkinsProxyRoutePlanner extends DefaultRoutePlanner {
+        private JenkinsProxyRoutePlanner() {
+            super(DefaultSchemePortResolver.INSTANCE);
+        }
+
+        @Override
+        protected HttpHost determineProxy(HttpHost target, HttpRequest request, HttpContext context) throws HttpException {
+            ProxyConfiguration proxyConfiguration = currentProxy();
+            if (proxyConfiguration == null) {
+                return null;
+            }
+            Proxy proxy = proxyConfiguration.createProxy(target.getHostName());
+            if (proxy.type() != Proxy.Type.HTTP || !(proxy.address() instanceof InetSocketAddress)) {
+                return null;
+            }
+            InetSocketAddress address = (InetSocketAddress) proxy.address();
+            return new HttpHost(address.getHostString(), address.getPort());
+        }
+    }
+
+    private static final class JenkinsProxyCredentialsProvider implements CredentialsProvider {
+        @Override
+        public Credentials getCredentials(AuthScope authScope) {
+            ProxyConfiguration proxy = currentProxy();
+            if (proxy == null || proxy.getUserName() == null || !proxy.name.equalsIgnoreCase(authScope.getHost())) {
+                return null;
+            }
+            return new UsernamePasswordCredentials(proxy.getUserName(), proxy.getPassword());
+        }
+
+        @Override
+        public void setCredentials(AuthScope authScope, Credentials credentials) {
+            // Credentials come from the Jenkins proxy configuration
+        }
+
+        @Override
+        public void clear() {
+            // Credentials come from the Jenkins proxy configuration
+        }
+    }
+
+    /**
+     * Streams the body with a large buffer and measures the time spent sending it.
+     */
+    private static final class StreamEntity extends AbstractHttpEntity {
+        private final InputStream content;
+        private final long length;
+        private volatile long sendNanos;
+
+        private StreamEntity(InputStream content, long length) {
+            this.content = content;
+            this.length = length;
+            setChunked(length < 0);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public long getContentLength() {
+            return length;
+        }
+
+        @Override
+        public InputStream getContent() {
+            return content;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            long start = System.nanoTime();
+            byte[] buffer = new byte[UPLOAD_BUFFER_SIZE];
+            if (length < 0) {
+                IOUtils.copyLarge(content, outputStream, buffer);
+            } else {
+                IOUtils.copyLarge(content, outputStream, 0, length, buffer);
+            }
+            outputStream.flush();
+            sendNanos = System.nanoTime() - start;
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return true;
+        }
+    }
+
+    private static final class PooledResponse implements Response {
+        private final CloseableHttpResponse response;
+        private final StreamEntity requestEntity;
+
+        private PooledResponse(CloseableHttpResponse response, StreamEntity requestEntity) {
+            this.response = response;
+            this.requestEntity = requestEntity;
+        }
+
+        @Override
+        public int getCode() {
+            return response.getStatusLine().getStatusCode();
+        }
+
+        @Override
+        public String getMessage() {
+            return response.getStatusLine().getReasonPhrase();
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            HttpEntity entity = response.getEntity();
+            return entity == null ? null : entity.getContent();
+        }
+
+        @Override
+        public long getSendNanos() {
+            return requestEntity == null ? 0 : requestEntity.sendNanos;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Reading the rest of the body keeps the connection usable for the pool
+            EntityUtils.consumeQuietly(response.getEntity());
+            response.close();
+        }
+    }
+}
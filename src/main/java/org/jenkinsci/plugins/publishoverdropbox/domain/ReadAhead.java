@@ -0,0 +1,249 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads the chunks of an upload on a separate thread while the previous chunk is being sent, so reading from disk and
+ * sending over the network overlap. The number of chunks read ahead is limited by a memory budget, without budget
+ * every chunk is read when it is asked for.
+ * <p>
+ * Chunks are {@code min(chunkSize, remaining)} bytes, in the order of the content. Their buffers come from the
+ * {@link ChunkBufferPool} and go back to it when this read ahead is closed, closing waits for its reader to stop.
+ */
+final class ReadAhead implements Closeable {
+
+    private static final Chunk END = new Chunk(ByteBuffer.allocate(0), 0, null);
+    private static ExecutorService executorService;
+
+    private final InputStream content;
+    private final int chunkSize;
+    private final ChunkBufferPool pool;
+    private final BlockingQueue<ByteBuffer> free;
+    private final BlockingQueue<Chunk> filled;
+    private final List<ByteBuffer> allocated = new ArrayList<>();
+    private final int maxBuffers;
+    // Claimed by the reader when it starts, or by close when it comes first so the reader never starts
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final Future<?> reader;
+    private long remaining;
+    private long unclaimed;
+    private long diskNanos;
+
+    /**
+     * @param content   stream to read the chunks from, positioned at the first chunk
+     * @param remaining number of bytes left in the stream
+     * @param chunkSize size of a full chunk
+     * @param budget    bytes that may be held by chunks read ahead
+     * @param pool      source of the chunk buffers
+     */
+    ReadAhead(InputStream content, long remaining, int chunkSize, long budget, ChunkBufferPool pool) {
+        this.content = content;
+        this.remaining = remaining;
+        this.unclaimed = remaining;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+        int ahead = (int) Math.min(Integer.MAX_VALUE - 1, budget / chunkSize);
+        // One buffer is being sent while the others are filled
+        this.maxBuffers = ahead + 1;
+        this.free = new ArrayBlockingQueue<>(maxBuffers);
+        this.filled = new ArrayBlockingQueue<>(maxBuffers);
+        this.reader = ahead > 0 ? getExecutorService().submit(this::readAll) : null;
+    }
+
+    /**
+     * @return the next chunk, to be given back with {@link #release(Chunk)} once it has been sent, an empty chunk
+     * after the last one
+     */
+    Chunk next() throws IOException {
+        if (unclaimed <= 0) {
+            return END;
+        }
+        long start = System.nanoTime();
+        try {
+            Chunk chunk;
+            if (reader == null) {
+                chunk = read(takeBuffer());
+            } else {
+                chunk = filled.take();
+            }
+            if (chunk.failure != null) {
+                throw chunk.failure;
+            }
+            unclaimed -= chunk.size;
+            return chunk;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (InterruptedIOException) new InterruptedIOException().initCause(e);
+        } finally {
+            diskNanos += System.nanoTime() - start;
+        }
+    }
+
+    void release(Chunk chunk) {
+        if (chunk != END) {
+            free.offer(chunk.buffer);
+        }
+    }
+
+    /**
+     * @return time spent waiting for chunks to be read, in nanoseconds
+     */
+    long getDiskNanos() {
+        return diskNanos;
+    }
+
+    /**
+     * Stops reading ahead, chunks handed out before must no longer be used. Waits for a read in progress to end, so
+     * the owner may close the content afterwards.
+     */
+    @Override
+    public void close() {
+        if (reader != null) {
+            reader.cancel(true);
+            if (!started.compareAndSet(false, true)) {
+                awaitReader();
+            }
+        }
+        for (ByteBuffer buffer : allocated) {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * A cancelled future does not wait for its task, so the reader signals when it has stopped.
+     */
+    private void awaitReader() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                stopped.await();
+                break;
+            } catch (InterruptedException e) {
+                // The buffers must not go back to the pool while the reader may still fill one
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readAll() {
+        if (!started.compareAndSet(false, true)) {
+            // Closed before it started
+            return;
+        }
+        try {
+            while (remaining > 0) {
+                Chunk chunk = read(takeBuffer());
+                filled.put(chunk);
+                if (chunk.failure != null) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    private ByteBuffer takeBuffer() throws InterruptedException {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null && allocated.size() < maxBuffers) {
+            // Never wait on the pool while holding buffers, the consumer gives those back
+            buffer = allocated.isEmpty() ? pool.acquire(chunkSize) : pool.tryAcquire(chunkSize);
+            if (buffer != null) {
+                allocated.add(buffer);
+            }
+        }
+        if (buffer == null) {
+            buffer = free.take();
+        }
+        return buffer;
+    }
+
+    private Chunk read(ByteBuffer buffer) {
+        int size = (int) Math.min(chunkSize, remaining);
+        try {
+            ChunkBufferPool.fill(buffer, content, size);
+        } catch (IOException e) {
+            return new Chunk(buffer, 0, e);
+        } catch (RuntimeException e) {
+            return new Chunk(buffer, 0, new IOException(e));
+        }
+        remaining -= size;
+        return new Chunk(buffer, size, null);
+    }
+
+    private static synchronized ExecutorService getExecutorService() {
+        if (executorService == null) {
+            executorService = Executors.newCachedThreadPool(
+                    new NamingThreadFactory(new DaemonThreadFactory(), "org.jenkinsci.plugins.publishoverdropbox.domain.ReadAhead"));
+        }
+        return executorService;
+    }
+
+    static final class Chunk {
+        private final ByteBuffer buffer;
+        private final int size;
+        private final IOException failure;
+
+        private Chunk(ByteBuffer buffer, int size, IOException failure) {
+            this.buffer = buffer;
+            this.size = size;
+            this.failure = failure;
+        }
+
+        /**
+         * @return the buffer holding the chunk from position 0
+         */
+        ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        int getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FileMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Metadata;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compact form of a large remote listing. Entries are nodes of a tree of interned path segments, their sizes,
+ * modification times and content hashes are kept in primitive arrays. A listing of half a million entries then holds
+ * every distinct folder or file name once instead of a handful of full path strings per entry.
+ * <p>
+ * Nodes are numbered, {@link #ROOT} is the root of the Dropbox. {@link Metadata} of a node is only built when asked
+ * for. Paths are looked up by their lower case form. Once built the tree may be read from several threads.
+ */
+final class RemoteTree {
+
+    static final int ROOT = 0;
+    static final int NOT_FOUND = -1;
+
+    private static final String PATH_SEPARATOR = "/";
+    private static final int HASH_LENGTH = 32;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final Map<String, Integer> segmentIds = new HashMap<>();
+    private final List<String> segments = new ArrayList<>();
+    private final BitSet folders = new BitSet();
+    private final BitSet hashed = new BitSet();
+    private int[] parents = new int[16];
+    private int[] lowerSegments = new int[16];
+    private int[] nameSegments = new int[16];
+    private long[] sizes = new long[16];
+    private long[] modified = new long[16];
+    private byte[] hashes = new byte[16 * HASH_LENGTH];
+    private int count;
+    // Open addressing from parent and lower case segment to the child node
+    private long[] childKeys = new long[32];
+    private int[] childNodes = new int[32];
+    private int children;
+
+    RemoteTree() {
+        intern("");
+        Arrays.fill(childNodes, NOT_FOUND);
+        createNode(NOT_FOUND, 0, 0);
+        folders.set(ROOT);
+    }
+
+    /**
+     * Adds or updates the entry at the path of the metadata, with the folders leading to it.
+     */
+    void add(Metadata metadata) {
+        String path = metadata.getPathLower();
+        if (path == null) {
+            return;
+        }
+        int node = findOrCreate(path);
+        if (metadata.getName() != null) {
+            nameSegments[node] = intern(metadata.getName());
+        }
+        if (metadata instanceof FolderMetadata) {
+            folders.set(node);
+        } else if (metadata instanceof FileMetadata) {
+            FileMetadata file = (FileMetadata) metadata;
+            folders.clear(node);
+            sizes[node] = file.getSize();
+            modified[node] = parseTime(file.getServerModified());
+            hashed.set(node, parseHash(file.getContentHash(), node));
+        }
+    }
+
+    /**
+     * @param path absolute path in any case
+     * @return the node at the path or {@link #NOT_FOUND}
+     */
+    int find(String path) {
+        int node = ROOT;
+        for (String segment : split(path.toLowerCase(Locale.ROOT))) {
+            Integer id = segmentIds.get(segment);
+            if (id == null) {
+                return NOT_FOUND;
+            }
+            node = findChild(node, id);
+            if (node == NOT_FOUND) {
+                return NOT_FOUND;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * @return number of nodes including the root
+     */
+    int size() {
+        return count;
+    }
+
+    boolean isFolder(int node) {
+        return folders.get(node);
+    }
+
+    int getParent(int node) {
+        return parents[node];
+    }
+
+    long getSize(int node) {
+        return sizes[node];
+    }
+
+    /**
+     * @return server modification time in milliseconds since the epoch, {@link Long#MIN_VALUE} when unknown
+     */
+    long getServerModified(int node) {
+        return modified[node];
+    }
+
+    /**
+     * @return hex encoded content hash of a file, {@code null} when unknown
+     */
+    String getContentHash(int node) {
+        if (!hashed.get(node)) {
+            return null;
+        }
+        return ContentHash.toHex(Arrays.copyOfRange(hashes, node * HASH_LENGTH, (node + 1) * HASH_LENGTH));
+    }
+
+    /**
+     * @return lower case absolute path of the node
+     */
+    String getPathLower(int node) {
+        if (node == ROOT) {
+            return "";
+        }
+        StringBuilder path = new StringBuilder();
+        for (int current = node; current != ROOT; current = parents[current]) {
+            path.insert(0, segments.get(lowerSegments[current])).insert(0, PATH_SEPARATOR);
+        }
+        return path.toString();
+    }
+
+    /**
+     * @return a new metadata view of the node
+     */
+    Metadata getMetadata(int node) {
+        Metadata metadata;
+        if (isFolder(node)) {
+            metadata = new FolderMetadata();
+            metadata.setTag("folder");
+        } else {
+            FileMetadata file = new FileMetadata();
+            file.setTag("file");
+            if (modified[node] != NO_TIME) {
+                file.setServerModified(Instant.ofEpochMilli(modified[node]).toString());
+            }
+            file.setContentHash(getContentHash(node));
+            file.setSize(sizes[node]);
+            metadata = file;
+        }
+        metadata.setName(segments.get(nameSegments[node]));
+        metadata.setPathLower(getPathLower(node));
+        return metadata;
+    }
+
+    private int findOrCreate(String pathLower) {
+        int node = ROOT;
+        for (String segment : split(pathLower)) {
+            int id = intern(segment);
+            int child = findChild(node, id);
+            if (child == NOT_FOUND) {
+                child = createNode(node, id, id);
+                // Folders leading to an entry, until their own entry arrives
+                folders.set(child);
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private int createNode(int parent, int lowerSegment, int nameSegment) {
+        if (count == parents.length) {
+            int capacity = count * 2;
+            parents = Arrays.copyOf(parents, capacity);
+            lowerSegments = Arrays.copyOf(lowerSegments, capacity);
+            nameSegments = Arrays.copyOf(nameSegments, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            modified = Arrays.copyOf(modified, capacity);
+            hashes = Arrays.copyOf(hashes, capacity * HASH_LENGTH);
+        }
+        int node = count++;
+        parents[node] = parent;
+        lowerSegments[node] = lowerSegment;
+        nameSegments[node] = nameSegment;
+        modified[node] = NO_TIME;
+        if (parent != NOT_FOUND) {
+            putChild(parent, lowerSegment, node);
+        }
+        return node;
+    }
+
+    private int intern(String segment) {
+        Integer id = segmentIds.get(segment);
+        if (id == null) {
+            id = segments.size();
+            segments.add(segment);
+            segmentIds.put(segment, id);
+        }
+        return id;
+    }
+
+    private int findChild(int parent, int segment) {
+        long key = childKey(parent, segment);
+        int slot = slot(key, childKeys.length);
+        while (childNodes[slot] != NOT_FOUND) {
+            if (childKeys[slot] == key) {
+                return childNodes[slot];
+            }
+            slot = (slot + 1) & (childKeys.length - 1);
+        }
+        return NOT_FOUND;
+    }
+
+    private void putChild(int parent, int segment, int node) {
+        if ((children + 1) * 2 > childKeys.length) {
+            long[] keys = childKeys;
+            int[] nodes = childNodes;
+            childKeys = new long[keys.length * 2];
+            childNodes = new int[keys.length * 2];
+            Arrays.fill(childNodes, NOT_FOUND);
+            for (int i = 0; i < keys.length; i++) {
+                if (nodes[i] != NOT_FOUND) {
+                    insert(keys[i], nodes[i]);
+                }
+            }
+        }
+        insert(childKey(parent, segment), node);
+        children++;
+    }
+
+    private void insert(long key, int node) {
+        int slot = slot(key, childKeys.length);
+        while (childNodes[slot] != NOT_FOUND) {
+            slot = (slot + 1) & (childKeys.length - 1);
+        }
+        childKeys[slot] = key;
+        childNodes[slot] = node;
+    }
+
+    private static long childKey(int parent, int segment) {
+        return ((long) parent << 32) | (segment & 0xffffffffL);
+    }
+
+    private static int slot(long key, int length) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (length - 1);
+    }
+
+    private static String[] split(String path) {
+        String trimmed = path.startsWith(PATH_SEPARATOR) ? path.substring(1) : path;
+        return trimmed.isEmpty() ? new String[0] : trimmed.split(PATH_SEPARATOR);
+    }
+
+    private static long parseTime(String time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        try {
+            return Instant.parse(time).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return NO_TIME;
+        }
+    }
+
+    private boolean parseHash(String hash, int node) {
+        if (hash == null || hash.length() != HASH_LENGTH * 2) {
+            return false;
+        }
+        int offset = node * HASH_LENGTH;
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            int high = Character.digit(hash.charAt(i * 2), 16);
+            int low = Character.digit(hash.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            hashes[offset + i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+}
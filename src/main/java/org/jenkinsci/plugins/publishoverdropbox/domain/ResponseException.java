@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import java.io.IOException;
+
+/**
+ * Failed request where the server did answer, keeps the HTTP status and the parsed error body.
+ */
+class ResponseException extends IOException {
+
+    private final int responseCode;
+    private final transient Object errorResponse;
+
+    ResponseException(String message, int responseCode, Object errorResponse, Throwable cause) {
+        super(message, cause);
+        this.responseCode = responseCode;
+        this.errorResponse = errorResponse;
+    }
+
+    int getResponseCode() {
+        return responseCode;
+    }
+
+    Object getErrorResponse() {
+        return errorResponse;
+    }
+
+    /**
+     * @param throwable exception to search, including its causes
+     * @return the first response exception in the cause chain, null if there is none
+     */
+    static ResponseException find(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ResponseException) {
+                return (ResponseException) cause;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the upload session and the confirmed offset of files being uploaded in chunks, so an upload that is
+ * retried in the same JVM continues where the previous attempt stopped. A checksum of the confirmed bytes of a
+ * content stream, or the last modified time of a file, guards against resuming with content that changed in between.
+ */
+final class ResumableSessions {
+
+    private static final int MAX_SESSIONS = 100;
+    private static final Map<String, Progress> SESSIONS = new LinkedHashMap<String, Progress>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Progress> eldest) {
+            return size() > MAX_SESSIONS;
+        }
+    };
+
+    private ResumableSessions() {
+    }
+
+    static String key(String accessToken, String path, long length) {
+        return Integer.toHexString(accessToken.hashCode()) + ':' + length + ':' + path;
+    }
+
+    static synchronized Progress lookup(String key) {
+        return SESSIONS.get(key);
+    }
+
+    /**
+     * @param checksum CRC32 of the content stream up to the offset
+     */
+    static synchronized void remember(String key, String sessionId, long offset, long checksum) {
+        SESSIONS.put(key, new Progress(sessionId, offset, checksum, offset, null));
+    }
+
+    /**
+     * @param lastModified last modified time of the uploaded file
+     */
+    static synchronized void rememberFile(String key, String sessionId, long offset, long lastModified) {
+        SESSIONS.put(key, new Progress(sessionId, offset, 0, 0, lastModified));
+    }
+
+    static synchronized void forget(String key) {
+        SESSIONS.remove(key);
+    }
+
+    static final class Progress {
+        private final String sessionId;
+        private final long offset;
+        private final long checksum;
+        private final long checkedLength;
+        private final Long lastModified;
+
+        private Progress(String sessionId, long offset, long checksum, long checkedLength, Long lastModified) {
+            this.sessionId = sessionId;
+            this.offset = offset;
+            this.checksum = checksum;
+            this.checkedLength = checkedLength;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @param offset offset the server expects next, at most the remembered offset
+         * @return the same session continued from the given offset, the checksum still covers the remembered bytes
+         */
+        Progress resync(long offset) {
+            return new Progress(sessionId, offset, checksum, checkedLength, lastModified);
+        }
+
+        String getSessionId() {
+            return sessionId;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        long getChecksum() {
+            return checksum;
+        }
+
+        /**
+         * @return whether the progress is of a content stream, with a checksum instead of a last modified time
+         */
+        boolean isOfStream() {
+            return lastModified == null;
+        }
+
+        /**
+         * @return whether the progress is of the file with the given last modified time
+         */
+        boolean isOfFile(long lastModified) {
+            return this.lastModified != null && this.lastModified == lastModified;
+        }
+
+        /**
+         * @return number of bytes covered by the checksum, more than the offset after a resync
+         */
+        long getCheckedLength() {
+            return checkedLength;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the content hashes of the files already present in the target folders, so files that did not change since
+ * an earlier build are not uploaded again. Each folder is listed once, a folder below one already listed is covered
+ * by that listing. Checks may run on several upload threads.
+ */
+class UnchangedFiles {
+
+    private final AtomicInteger skippedFiles = new AtomicInteger();
+    private final AtomicLong skippedBytes = new AtomicLong();
+    // Remote files by the lower case folder they were listed from, empty for the root
+    private final Map<String, RemoteTree> listings = new ConcurrentHashMap<>();
+
+    /**
+     * @param folder lower case absolute folder, empty for the root
+     * @return true when the folder or one above it was listed
+     */
+    boolean isListed(String folder) {
+        for (String listed : listings.keySet()) {
+            if (contains(listed, folder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param folder      lower case absolute folder, empty for the root
+     * @param remoteFiles files and folders in the folder and its sub folders
+     */
+    void add(String folder, RemoteTree remoteFiles) {
+        listings.put(folder, remoteFiles);
+        listings.keySet().removeIf(listed -> !listed.equals(folder) && contains(folder, listed));
+    }
+
+    /**
+     * @return true when a remote file of the same size exists, only then the local content needs to be hashed
+     */
+    boolean isCandidate(String path, long length) {
+        RemoteTree tree = findListing(path);
+        return tree != null && find(tree, path, length) != RemoteTree.NOT_FOUND;
+    }
+
+    /**
+     * @param path      absolute destination of the file
+     * @param length    size of the local file
+     * @param localHash content hash of the local file
+     * @return true when the remote file has the same content, the file is then counted as skipped
+     */
+    boolean isUnchanged(String path, long length, String localHash) {
+        RemoteTree tree = findListing(path);
+        int node = tree == null ? RemoteTree.NOT_FOUND : find(tree, path, length);
+        if (node == RemoteTree.NOT_FOUND || !tree.getContentHash(node).equals(localHash)) {
+            return false;
+        }
+        skippedFiles.incrementAndGet();
+        skippedBytes.addAndGet(length);
+        return true;
+    }
+
+    /**
+     * Forget the remote files after a folder was cleaned, the folder counts as listed and empty.
+     *
+     * @param folder lower case absolute folder, empty for the root
+     */
+    void clear(String folder) {
+        // Listings of folders above the cleaned one still hold its former files
+        listings.clear();
+        listings.put(folder, new RemoteTree());
+    }
+
+    int getSkippedFiles() {
+        return skippedFiles.get();
+    }
+
+    long getSkippedBytes() {
+        return skippedBytes.get();
+    }
+
+    private RemoteTree findListing(String path) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, RemoteTree> listing : listings.entrySet()) {
+            if (contains(listing.getKey(), lower)) {
+                return listing.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(String folder, String path) {
+        return path.equals(folder) || path.startsWith(folder + "/");
+    }
+
+    /**
+     * @return the node of a remote file with a known hash and the given size, {@link RemoteTree#NOT_FOUND} otherwise
+     */
+    private static int find(RemoteTree tree, String path, long length) {
+        int node = tree.find(path);
+        if (node == RemoteTree.NOT_FOUND || tree.isFolder(node) || tree.getSize(node) != length
+                || tree.getContentHash(node) == null) {
+            return RemoteTree.NOT_FOUND;
+        }
+        return node;
+    }
+}
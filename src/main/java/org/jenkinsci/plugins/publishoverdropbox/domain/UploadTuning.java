@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the chunk size and the largest single request upload for one host configuration from the throughput and
+ * latency measured on earlier uploads. Measurements are shared by all builds in the JVM that publish to the same
+ * host configuration.
+ * <p>
+ * Chunks are sized so the request latency stays a small part of the time spent per chunk, files that upload within
+ * half a minute are sent in a single request. Both stay within the limits of the Dropbox API.
+ */
+public final class UploadTuning {
+
+    private static final long MEGA_BYTE = 1024 * 1024;
+    // Chunks of concurrent upload sessions have to be a multiple of 4 MB
+    static final long MIN_CHUNK_SIZE = 4 * MEGA_BYTE;
+    static final long MAX_CHUNK_SIZE = 148 * MEGA_BYTE;
+    static final long MAX_SINGLE_UPLOAD = 150 * MEGA_BYTE;
+    // Smaller bodies disappear in the socket buffers and say little about the throughput
+    private static final long MIN_SAMPLE_SIZE = MEGA_BYTE;
+    private static final double MIN_CHUNK_SECONDS = 4;
+    private static final double MAX_LATENCY_SHARE = 0.05;
+    private static final double SINGLE_UPLOAD_SECONDS = 30;
+    private static final double SAMPLE_WEIGHT = 0.3;
+    private static final Map<String, UploadTuning> HOSTS = new ConcurrentHashMap<>();
+
+    private long maxChunkSize = MIN_CHUNK_SIZE;
+    private double throughput;
+    private double latency;
+    private boolean measuredLatency;
+
+    UploadTuning(long maxChunkSize) {
+        setMaxChunkSize(maxChunkSize);
+    }
+
+    /**
+     * @param hostName     name of the host configuration
+     * @param maxChunkSize largest chunk kept in memory, in bytes
+     * @return the tuning of the host configuration, shared with other clients of the same configuration
+     */
+    public static UploadTuning forHost(String hostName, long maxChunkSize) {
+        UploadTuning tuning = HOSTS.computeIfAbsent(hostName, name -> new UploadTuning(maxChunkSize));
+        tuning.setMaxChunkSize(maxChunkSize);
+        return tuning;
+    }
+
+    synchronized void setMaxChunkSize(long maxChunkSize) {
+        long rounded = maxChunkSize / MIN_CHUNK_SIZE * MIN_CHUNK_SIZE;
+        this.maxChunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, rounded));
+    }
+
+    /**
+     * Adds the timing of a completed upload request.
+     *
+     * @param bytes     size of the request body
+     * @param sendNanos time spent writing the body
+     * @param waitNanos time between the end of the body and the response
+     */
+    synchronized void transferred(long bytes, long sendNanos, long waitNanos) {
+        double wait = waitNanos / 1e9;
+        latency = measuredLatency ? latency + SAMPLE_WEIGHT * (wait - latency) : wait;
+        measuredLatency = true;
+        if (bytes >= MIN_SAMPLE_SIZE && sendNanos > 0) {
+            double rate = bytes / ((sendNanos + waitNanos) / 1e9);
+            throughput = throughput > 0 ? throughput + SAMPLE_WEIGHT * (rate - throughput) : rate;
+        }
+    }
+
+    /**
+     * @return the size of the chunks of an upload session, a multiple of 4 MB
+     */
+    public synchronized long getChunkSize() {
+        if (throughput <= 0) {
+            return MIN_CHUNK_SIZE;
+        }
+        double seconds = Math.max(MIN_CHUNK_SECONDS, latency / MAX_LATENCY_SHARE);
+        long size = (long) (throughput * seconds) / MIN_CHUNK_SIZE * MIN_CHUNK_SIZE;
+        return Math.max(MIN_CHUNK_SIZE, Math.min(maxChunkSize, size));
+    }
+
+    /**
+     * @return the size up to which a file is uploaded in a single request instead of an upload session
+     */
+    public synchronized long getSingleUploadLimit() {
+        long chunkSize = getChunkSize();
+        if (throughput <= 0) {
+            return chunkSize;
+        }
+        long size = (long) (throughput * SINGLE_UPLOAD_SECONDS);
+        return Math.max(chunkSize, Math.min(MAX_SINGLE_UPLOAD, size));
+    }
+
+    /**
+     * @return measured throughput of a single upload in bytes per second, 0 before the first measurement
+     */
+    public synchronized long getThroughput() {
+        return (long) throughput;
+    }
+
+    /**
+     * @return measured latency in milliseconds between sending a request and its response
+     */
+    public synchronized long getLatency() {
+        return (long) (latency * 1000);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import hudson.ProxyConfiguration;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Transport on {@link HttpURLConnection}, relying on the keep-alive cache of the JDK.
+ */
+class UrlConnectionTransport implements HttpTransport {
+
+    private static final int UPLOAD_BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public Response execute(String method, URL url, Map<String, String> headers, InputStream body, long contentLength,
+                            int timeout) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) ProxyConfiguration.open(url);
+        connection.setReadTimeout(timeout);
+        connection.setConnectTimeout(timeout);
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            connection.addRequestProperty(entry.getKey(), entry.getValue());
+        }
+        connection.setRequestMethod(method);
+        long sendNanos = 0;
+        if (body != null) {
+            connection.setDoOutput(true);
+            if (contentLength >= 0) {
+                connection.setFixedLengthStreamingMode(contentLength);
+            } else {
+                connection.setChunkedStreamingMode(UPLOAD_BUFFER_SIZE);
+            }
+            long start = System.nanoTime();
+            try (OutputStream outputStream = connection.getOutputStream()) {
+                IOUtils.copyLarge(body, outputStream, new byte[UPLOAD_BUFFER_SIZE]);
+                outputStream.flush();
+            }
+            sendNanos = System.nanoTime() - start;
+        }
+
+        return new ConnectionResponse(connection, sendNanos);
+    }
+
+    private static final class ConnectionResponse implements Response {
+        private final HttpURLConnection connection;
+        private final long sendNanos;
+        private InputStream content;
+
+        private ConnectionResponse(HttpURLConnection connection, long sendNanos) {
+            this.connection = connection;
+            this.sendNanos = sendNanos;
+        }
+
+        @Override
+        public int getCode() throws IOException {
+            return connection.getResponseCode();
+        }
+
+        @Override
+        public String getMessage() throws IOException {
+            return connection.getResponseMessage();
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            if (content == null) {
+                int code = getCode();
+                content = code >= 200 && code <= 299 ? connection.getInputStream() : connection.getErrorStream();
+            }
+            return content;
+        }
+
+        @Override
+        public long getSendNanos() {
+            return sendNanos;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Closing the read stream hands the connection back to the keep-alive cache
+            if (content != null) {
+                content.close();
+            }
+        }
+    }
+}
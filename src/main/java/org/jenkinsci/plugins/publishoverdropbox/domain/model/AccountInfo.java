@@ -39,7 +39,15 @@ public class AccountInfo {
         return accountId;
     }
 
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
     public boolean isDisabled() {
         return disabled;
     }
+
+    public void setDisabled(boolean disabled) {
+        this.disabled = disabled;
+    }
 }
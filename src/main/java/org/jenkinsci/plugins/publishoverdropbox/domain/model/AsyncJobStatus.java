@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2015 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.publishoverdropbox.domain.model;
+
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+/**
+ * State of a batch operation, either the launch of an async job or the result of checking on it.
+ */
+public class AsyncJobStatus {
+    public static final String TAG_ASYNC_JOB_ID = "async_job_id";
+    public static final String TAG_IN_PROGRESS = "in_progress";
+    public static final String TAG_COMPLETE = "complete";
+    public static final String TAG_FAILED = "failed";
+
+    @Expose
+    @SerializedName(".tag")
+    private String tag;
+    @Expose
+    @SerializedName("async_job_id")
+    private String asyncJobId;
+    @Expose
+    private List<BatchEntryResult> entries;
+
+    public String getTag() {
+        return tag;
+    }
+
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+
+    public String getAsyncJobId() {
+        return asyncJobId;
+    }
+
+    public void setAsyncJobId(String asyncJobId) {
+        this.asyncJobId = asyncJobId;
+    }
+
+    public List<BatchEntryResult> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<BatchEntryResult> entries) {
+        this.entries = entries;
+    }
+
+    public boolean isPending() {
+        return TAG_ASYNC_JOB_ID.equals(tag) || TAG_IN_PROGRESS.equals(tag);
+    }
+
+    public boolean isComplete() {
+        return TAG_COMPLETE.equals(tag);
+    }
+}
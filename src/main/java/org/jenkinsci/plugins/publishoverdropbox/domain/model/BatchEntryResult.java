@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2015 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.publishoverdropbox.domain.model;
+
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Outcome of a single entry of a batch operation
+ */
+public class BatchEntryResult {
+    public static final String TAG_SUCCESS = "success";
+
+    @Expose
+    @SerializedName(".tag")
+    private String tag;
+    @Expose
+    @SerializedName("path_lower")
+    private String pathLower;
+    @Expose
+    private Failure failure;
+
+    public static BatchEntryResult success() {
+        BatchEntryResult result = new BatchEntryResult();
+        result.tag = TAG_SUCCESS;
+        return result;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+
+    public String getPathLower() {
+        return pathLower;
+    }
+
+    public void setPathLower(String pathLower) {
+        this.pathLower = pathLower;
+    }
+
+    public boolean isSuccess() {
+        return TAG_SUCCESS.equals(tag);
+    }
+
+    public String getFailureTag() {
+        return failure != null ? failure.tag : tag;
+    }
+
+    public void setFailureTag(String failureTag) {
+        failure = new Failure();
+        failure.tag = failureTag;
+    }
+
+    public static class Failure {
+        @Expose
+        @SerializedName(".tag")
+        private String tag;
+    }
+}
@@ -38,10 +38,63 @@ public class ErrorResponse {
     @SerializedName("user_message")
     private String userMessage;
 
+    public Error getError() {
+        return error;
+    }
+
+    public void setError(Error error) {
+        this.error = error;
+    }
+
+    public String getErrorSummary() {
+        return errorSummary;
+    }
+
+    public void setErrorSummary(String errorSummary) {
+        this.errorSummary = errorSummary;
+    }
+
+    public void setUserMessage(String userMessage) {
+        this.userMessage = userMessage;
+    }
+
     public static class Error {
         @Expose
         @SerializedName(".tag")
         private String tag;
+        @Expose
+        @SerializedName("correct_offset")
+        private Long correctOffset;
+        @Expose
+        @SerializedName("lookup_failed")
+        private Error lookupFailed;
+
+        public String getTag() {
+            return tag;
+        }
+
+        public void setTag(String tag) {
+            this.tag = tag;
+        }
+
+        public void setCorrectOffset(Long correctOffset) {
+            this.correctOffset = correctOffset;
+        }
+
+        public void setLookupFailed(Error lookupFailed) {
+            this.lookupFailed = lookupFailed;
+        }
+
+        /**
+         * @return the offset the server expects next on an incorrect_offset error, also when nested in a lookup_failed
+         * error, null otherwise
+         */
+        public Long getCorrectOffset() {
+            if (correctOffset == null && lookupFailed != null) {
+                return lookupFailed.getCorrectOffset();
+            }
+            return correctOffset;
+        }
     }
 
     @Override
@@ -37,6 +37,10 @@ public class FileMetadata extends Metadata {
     @Expose
     private String clientModified;
 
+    @SerializedName("content_hash")
+    @Expose
+    private String contentHash;
+
     public String getServerModified() {
         return serverModified;
     }
@@ -53,6 +57,14 @@ public class FileMetadata extends Metadata {
         this.clientModified = clientModified;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     @Override
     public boolean isDir() {
         return false;
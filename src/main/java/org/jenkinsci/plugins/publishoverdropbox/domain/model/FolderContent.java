@@ -24,23 +24,38 @@
 
 package org.jenkinsci.plugins.publishoverdropbox.domain.model;
 
+import com.google.gson.annotations.SerializedName;
+
 import java.util.List;
 
 public class FolderContent {
 
     private List<Metadata> entries;
     private String cursor;
+    @SerializedName("has_more")
     private boolean hasMore;
 
     public boolean hasMore() {
         return hasMore;
     }
 
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
     public List<Metadata> getEntries() {
         return entries;
     }
 
+    public void setEntries(List<Metadata> entries) {
+        this.entries = entries;
+    }
+
     public String getCursor() {
         return cursor;
     }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
 }
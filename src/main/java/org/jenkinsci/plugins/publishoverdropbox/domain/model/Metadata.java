@@ -52,24 +52,52 @@ public abstract class Metadata {
         return tag;
     }
 
+    public void setTag(String tag) {
+        this.tag = tag;
+    }
+
     public String getName() {
         return name;
     }
 
+    public void setName(String name) {
+        this.name = name;
+    }
+
     public String getId() {
         return id;
     }
 
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public abstract boolean isDir();
 
 
     public abstract boolean isFile();
 
+    public String getPathDisplay() {
+        return pathDisplay;
+    }
+
+    public void setPathDisplay(String pathDisplay) {
+        this.pathDisplay = pathDisplay;
+    }
+
     public String getPathLower() {
         return pathLower;
     }
 
+    public void setPathLower(String pathLower) {
+        this.pathLower = pathLower;
+    }
+
     public long getSize() {
         return size;
     }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
 }
@@ -0,0 +1,37 @@
+package org.jenkinsci.plugins.publishoverdropbox.domain.model.requests;
+
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CreateFolderBatch {
+    @Expose
+    private final List<String> paths = new ArrayList<>();
+    @Expose
+    private boolean autorename = false;
+    @Expose
+    @SerializedName("force_async")
+    private boolean forceAsync = false;
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    public boolean isAutorename() {
+        return autorename;
+    }
+
+    public void setAutorename(boolean autorename) {
+        this.autorename = autorename;
+    }
+
+    public boolean isForceAsync() {
+        return forceAsync;
+    }
+
+    public void setForceAsync(boolean forceAsync) {
+        this.forceAsync = forceAsync;
+    }
+}
@@ -0,0 +1,15 @@
+package org.jenkinsci.plugins.publishoverdropbox.domain.model.requests;
+
+import com.google.gson.annotations.Expose;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DeleteBatch {
+    @Expose
+    private final List<DeleteRequest> entries = new ArrayList<>();
+
+    public List<DeleteRequest> getEntries() {
+        return entries;
+    }
+}
@@ -17,6 +17,8 @@ public class ListFolderRequest {
     @Expose
     @SerializedName("include_has_explicit_shared_members")
     private boolean includeHasExplicitShareMembers = false;
+    @Expose
+    private Integer limit;
 
     public String getPath() {
         return path;
@@ -57,4 +59,15 @@ public class ListFolderRequest {
     public void setIncludeHasExplicitShareMembers(boolean includeHasExplicitShareMembers) {
         this.includeHasExplicitShareMembers = includeHasExplicitShareMembers;
     }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param limit approximate maximum number of entries per page, {@code null} leaves it to Dropbox
+     */
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
 }
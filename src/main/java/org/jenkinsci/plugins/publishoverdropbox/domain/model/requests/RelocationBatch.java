@@ -0,0 +1,25 @@
+package org.jenkinsci.plugins.publishoverdropbox.domain.model.requests;
+
+import com.google.gson.annotations.Expose;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RelocationBatch {
+    @Expose
+    private final List<RelocationPath> entries = new ArrayList<>();
+    @Expose
+    private boolean autorename = false;
+
+    public List<RelocationPath> getEntries() {
+        return entries;
+    }
+
+    public boolean isAutorename() {
+        return autorename;
+    }
+
+    public void setAutorename(boolean autorename) {
+        this.autorename = autorename;
+    }
+}
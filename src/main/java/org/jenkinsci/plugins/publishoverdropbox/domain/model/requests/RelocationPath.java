@@ -0,0 +1,39 @@
+package org.jenkinsci.plugins.publishoverdropbox.domain.model.requests;
+
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+
+public class RelocationPath {
+
+    @Expose
+    @SerializedName("from_path")
+    private String fromPath;
+
+    @Expose
+    @SerializedName("to_path")
+    private String toPath;
+
+    public RelocationPath() {
+    }
+
+    public RelocationPath(String fromPath, String toPath) {
+        this.fromPath = fromPath;
+        this.toPath = toPath;
+    }
+
+    public String getFromPath() {
+        return fromPath;
+    }
+
+    public void setFromPath(String fromPath) {
+        this.fromPath = fromPath;
+    }
+
+    public String getToPath() {
+        return toPath;
+    }
+
+    public void setToPath(String toPath) {
+        this.toPath = toPath;
+    }
+}
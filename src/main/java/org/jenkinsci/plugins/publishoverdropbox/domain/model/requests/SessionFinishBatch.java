@@ -0,0 +1,15 @@
+package org.jenkinsci.plugins.publishoverdropbox.domain.model.requests;
+
+import com.google.gson.annotations.Expose;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SessionFinishBatch {
+    @Expose
+    private final List<SessionFinish> entries = new ArrayList<>();
+
+    public List<SessionFinish> getEntries() {
+        return entries;
+    }
+}
@@ -1,11 +1,16 @@
 package org.jenkinsci.plugins.publishoverdropbox.domain.model.requests;
 
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
 
 public class SessionStart {
     @Expose
     private boolean close = false;
 
+    @Expose
+    @SerializedName("session_type")
+    private String sessionType;
+
     public boolean isClose() {
         return close;
     }
@@ -13,4 +18,17 @@ public class SessionStart {
     public void setClose(boolean close) {
         this.close = close;
     }
+
+    public String getSessionType() {
+        return sessionType;
+    }
+
+    public void setSessionType(String sessionType) {
+        this.sessionType = sessionType;
+    }
+
+    public interface SessionType {
+        String SEQUENTIAL = "sequential";
+        String CONCURRENT = "concurrent";
+    }
 }
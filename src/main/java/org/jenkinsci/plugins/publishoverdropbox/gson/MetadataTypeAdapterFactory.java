@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FileMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Metadata;
+
+import java.io.IOException;
+
+/**
+ * Reads {@link Metadata} entries and their subtypes in a single pass over the stream. The {@code .tag} may come after
+ * the other fields, so fields are collected first and bound to the subtype at the end of the object. Fields the model
+ * does not have are skipped without being parsed into a tree.
+ * <p>
+ * Responses typed as a file or folder, like the result of an upload, may leave out the {@code .tag}. Deleted entries,
+ * which a continued folder listing reports for changes made after it started, are read as null.
+ */
+public class MetadataTypeAdapterFactory implements TypeAdapterFactory {
+
+    private static final String TAG_FILE = "file";
+    private static final String TAG_FOLDER = "folder";
+    private static final String TAG_DELETED = "deleted";
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == Metadata.class) {
+            return (TypeAdapter<T>) new MetadataTypeAdapter(null);
+        } else if (rawType == FileMetadata.class) {
+            return (TypeAdapter<T>) new MetadataTypeAdapter(TAG_FILE);
+        } else if (rawType == FolderMetadata.class) {
+            return (TypeAdapter<T>) new MetadataTypeAdapter(TAG_FOLDER);
+        }
+        return null;
+    }
+
+    private static class MetadataTypeAdapter extends TypeAdapter<Metadata> {
+
+        private final String expectedTag;
+
+        MetadataTypeAdapter(String expectedTag) {
+            this.expectedTag = expectedTag;
+        }
+
+        @Override
+        public Metadata read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            String tag = null;
+            String name = null;
+            String id = null;
+            String pathDisplay = null;
+            String pathLower = null;
+            long size = 0;
+            String serverModified = null;
+            String clientModified = null;
+            String contentHash = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case ".tag":
+                        tag = in.nextString();
+                        break;
+                    case "name":
+                        name = in.nextString();
+                        break;
+                    case "id":
+                        id = in.nextString();
+                        break;
+                    case "path_display":
+                        pathDisplay = in.nextString();
+                        break;
+                    case "path_lower":
+                        pathLower = in.nextString();
+                        break;
+                    case "size":
+                        size = in.nextLong();
+                        break;
+                    case "server_modified":
+                        serverModified = in.nextString();
+                        break;
+                    case "client_modified":
+                        clientModified = in.nextString();
+                        break;
+                    case "content_hash":
+                        contentHash = in.nextString();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            if (tag == null) {
+                tag = expectedTag;
+            } else if (expectedTag != null && !expectedTag.equals(tag)) {
+                throw new JsonParseException("cannot deserialize " + tag + " as " + expectedTag);
+            }
+            Metadata metadata;
+            if (TAG_FILE.equals(tag)) {
+                FileMetadata file = new FileMetadata();
+                file.setServerModified(serverModified);
+                file.setClientModified(clientModified);
+                file.setContentHash(contentHash);
+                metadata = file;
+            } else if (TAG_FOLDER.equals(tag)) {
+                metadata = new FolderMetadata();
+            } else if (TAG_DELETED.equals(tag)) {
+                return null;
+            } else if (tag == null) {
+                throw new JsonParseException("cannot deserialize " + Metadata.class
+                        + " because it does not define a field named .tag");
+            } else {
+                throw new JsonParseException("cannot deserialize " + Metadata.class + " subtype named " + tag);
+            }
+            metadata.setTag(tag);
+            metadata.setName(name);
+            metadata.setId(id);
+            metadata.setPathDisplay(pathDisplay);
+            metadata.setPathLower(pathLower);
+            metadata.setSize(size);
+            return metadata;
+        }
+
+        @Override
+        public void write(JsonWriter out, Metadata value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name(".tag").value(value.isFile() ? TAG_FILE : TAG_FOLDER);
+            writeString(out, "name", value.getName());
+            writeString(out, "id", value.getId());
+            writeString(out, "path_display", value.getPathDisplay());
+            writeString(out, "path_lower", value.getPathLower());
+            out.name("size").value(value.getSize());
+            if (value instanceof FileMetadata) {
+                FileMetadata file = (FileMetadata) value;
+                writeString(out, "server_modified", file.getServerModified());
+                writeString(out, "client_modified", file.getClientModified());
+                writeString(out, "content_hash", file.getContentHash());
+            }
+            out.endObject();
+        }
+
+        private static void writeString(JsonWriter out, String name, String value) throws IOException {
+            if (value != null) {
+                out.name(name).value(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.AsyncJobRequest;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.CreateFolderBatch;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.CreateFolderRequest;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.Cursor;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.CursorRequest;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.DeleteBatch;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.DeleteRequest;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.ListFolderRequest;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.MetadataRequest;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.RelocationBatch;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.RelocationPath;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionAppend;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionFinish;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionFinishBatch;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionStart;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.UploadRequest;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the requests to the Dropbox API without reflection, with the same fields in the same order as the
+ * reflective adapter would. Reading requests is left to the reflective adapter, the plugin never receives them.
+ */
+public class RequestTypeAdapterFactory implements TypeAdapterFactory {
+
+    private static final Map<Class<?>, Writer<?>> WRITERS = new HashMap<>();
+
+    static {
+        register(AsyncJobRequest.class, (out, value) -> {
+            writeString(out, "async_job_id", value.getAsyncJobId());
+        });
+        register(CreateFolderBatch.class, (out, value) -> {
+            out.name("paths").beginArray();
+            for (String path : value.getPaths()) {
+                out.value(path);
+            }
+            out.endArray();
+            out.name("autorename").value(value.isAutorename());
+            out.name("force_async").value(value.isForceAsync());
+        });
+        register(CreateFolderRequest.class, (out, value) -> {
+            writeString(out, "path", value.getPath());
+            out.name("autorename").value(value.isAutoRename());
+        });
+        register(Cursor.class, RequestTypeAdapterFactory::writeCursor);
+        register(CursorRequest.class, (out, value) -> {
+            writeString(out, "cursor", value.getCursor());
+        });
+        register(DeleteBatch.class, (out, value) -> {
+            out.name("entries").beginArray();
+            for (DeleteRequest entry : value.getEntries()) {
+                out.beginObject();
+                writeString(out, "path", entry.getPath());
+                out.endObject();
+            }
+            out.endArray();
+        });
+        register(DeleteRequest.class, (out, value) -> {
+            writeString(out, "path", value.getPath());
+        });
+        register(ListFolderRequest.class, (out, value) -> {
+            writeString(out, "path", value.getPath());
+            out.name("recursive").value(value.isRecursive());
+            out.name("include_media_info").value(value.isIncludeMediaInfo());
+            out.name("include_deleted").value(value.isIncludeDeleted());
+            out.name("include_has_explicit_shared_members").value(value.isIncludeHasExplicitShareMembers());
+            if (value.getLimit() != null) {
+                out.name("limit").value(value.getLimit());
+            }
+        });
+        register(MetadataRequest.class, (out, value) -> {
+            writeString(out, "path", value.getPath());
+            out.name("include_media_info").value(value.isIncludeMediaInfo());
+            out.name("include_deleted").value(value.isIncludeDeleted());
+            out.name("include_has_explicit_shared_members").value(value.isIncludeHasExplicitSharedMembers());
+        });
+        register(RelocationBatch.class, (out, value) -> {
+            out.name("entries").beginArray();
+            for (RelocationPath entry : value.getEntries()) {
+                out.beginObject();
+                writeRelocationPath(out, entry);
+                out.endObject();
+            }
+            out.endArray();
+            out.name("autorename").value(value.isAutorename());
+        });
+        register(RelocationPath.class, RequestTypeAdapterFactory::writeRelocationPath);
+        register(SessionAppend.class, (out, value) -> {
+            out.name("cursor").beginObject();
+            writeCursor(out, value.cursor);
+            out.endObject();
+            out.name("close").value(value.isClose());
+        });
+        register(SessionFinish.class, RequestTypeAdapterFactory::writeSessionFinish);
+        register(SessionFinishBatch.class, (out, value) -> {
+            out.name("entries").beginArray();
+            for (SessionFinish entry : value.getEntries()) {
+                out.beginObject();
+                writeSessionFinish(out, entry);
+                out.endObject();
+            }
+            out.endArray();
+        });
+        register(SessionStart.class, (out, value) -> {
+            out.name("close").value(value.isClose());
+            writeString(out, "session_type", value.getSessionType());
+        });
+        register(UploadRequest.class, (out, value) -> {
+            writeString(out, "path", value.getPath());
+            writeString(out, "mode", value.getMode());
+            out.name("autorename").value(value.isAutorename());
+            out.name("mute").value(value.isMute());
+        });
+    }
+
+    private static <T> void register(Class<T> type, Writer<T> writer) {
+        WRITERS.put(type, writer);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Writer<T> writer = (Writer<T>) WRITERS.get(type.getRawType());
+        if (writer == null) {
+            return null;
+        }
+        return new WritingAdapter<>(gson, this, type, writer);
+    }
+
+    private static void writeCursor(JsonWriter out, Cursor cursor) throws IOException {
+        writeString(out, "session_id", cursor.getSessionId());
+        out.name("offset").value(cursor.getOffset());
+    }
+
+    private static void writeRelocationPath(JsonWriter out, RelocationPath path) throws IOException {
+        writeString(out, "from_path", path.getFromPath());
+        writeString(out, "to_path", path.getToPath());
+    }
+
+    private static void writeSessionFinish(JsonWriter out, SessionFinish finish) throws IOException {
+        out.name("cursor").beginObject();
+        writeCursor(out, finish.cursor);
+        out.endObject();
+        SessionFinish.Commit commit = finish.commit;
+        out.name("commit").beginObject();
+        writeString(out, "path", commit.getPath());
+        writeString(out, "mode", commit.getMode());
+        out.name("autorename").value(commit.isAutoRename());
+        out.name("mute").value(commit.isMute());
+        out.endObject();
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    /**
+     * Writes the fields of a request, the surrounding object is written by the adapter.
+     */
+    private interface Writer<T> {
+        void writeFields(JsonWriter out, T value) throws IOException;
+    }
+
+    /**
+     * The reflective adapter for reading is only created when a request is read.
+     */
+    private static class WritingAdapter<T> extends TypeAdapter<T> {
+
+        private final Gson gson;
+        private final TypeAdapterFactory factory;
+        private final TypeToken<T> type;
+        private final Writer<T> writer;
+        private volatile TypeAdapter<T> reader;
+
+        WritingAdapter(Gson gson, TypeAdapterFactory factory, TypeToken<T> type, Writer<T> writer) {
+            this.gson = gson;
+            this.factory = factory;
+            this.type = type;
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writer.writeFields(out, value);
+            out.endObject();
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (reader == null) {
+                reader = gson.getDelegateAdapter(factory, type);
+            }
+            return reader.read(in);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.AccountInfo;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.AsyncJobStatus;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.BatchEntryResult;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.ErrorResponse;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderContent;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Metadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Session;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.TokenResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the responses of the Dropbox API without reflection. Only the fields the plugin uses are bound, everything
+ * else is skipped. Writing these models is left to the reflective adapter, the plugin never sends them.
+ */
+public class ResponseTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        TypeAdapter<?> adapter;
+        if (rawType == AccountInfo.class) {
+            adapter = new AccountInfoAdapter(gson, this);
+        } else if (rawType == AsyncJobStatus.class) {
+            adapter = new AsyncJobStatusAdapter(gson, this, gson.getAdapter(BatchEntryResult.class));
+        } else if (rawType == BatchEntryResult.class) {
+            adapter = new BatchEntryResultAdapter(gson, this);
+        } else if (rawType == ErrorResponse.class) {
+            adapter = new ErrorResponseAdapter(gson, this);
+        } else if (rawType == FolderContent.class) {
+            adapter = new FolderContentAdapter(gson, this, gson.getAdapter(Metadata.class));
+        } else if (rawType == Session.class) {
+            adapter = new SessionAdapter(gson, this);
+        } else if (rawType == TokenResponse.class) {
+            adapter = new TokenResponseAdapter(gson, this);
+        } else {
+            return null;
+        }
+        return (TypeAdapter<T>) adapter;
+    }
+
+    /**
+     * Reads an object field by field, null fields are skipped like absent ones. The reflective adapter for writing
+     * is only created when a model is written.
+     */
+    private abstract static class ReadingAdapter<T> extends TypeAdapter<T> {
+
+        private final Gson gson;
+        private final TypeAdapterFactory factory;
+        private final Class<T> type;
+        private volatile TypeAdapter<T> writer;
+
+        ReadingAdapter(Gson gson, TypeAdapterFactory factory, Class<T> type) {
+            this.gson = gson;
+            this.factory = factory;
+            this.type = type;
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            T model = create();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                } else if (!readField(in, field, model)) {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return model;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if (writer == null) {
+                writer = gson.getDelegateAdapter(factory, TypeToken.get(type));
+            }
+            writer.write(out, value);
+        }
+
+        abstract T create();
+
+        /**
+         * @return false when the field is not bound and its value is still to be skipped
+         */
+        abstract boolean readField(JsonReader in, String field, T model) throws IOException;
+    }
+
+    private static class AccountInfoAdapter extends ReadingAdapter<AccountInfo> {
+
+        AccountInfoAdapter(Gson gson, TypeAdapterFactory factory) {
+            super(gson, factory, AccountInfo.class);
+        }
+
+        @Override
+        AccountInfo create() {
+            return new AccountInfo();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String field, AccountInfo model) throws IOException {
+            switch (field) {
+                case "account_id":
+                    model.setAccountId(in.nextString());
+                    return true;
+                case "disabled":
+                    model.setDisabled(in.nextBoolean());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static class AsyncJobStatusAdapter extends ReadingAdapter<AsyncJobStatus> {
+
+        private final TypeAdapter<BatchEntryResult> entryAdapter;
+
+        AsyncJobStatusAdapter(Gson gson, TypeAdapterFactory factory, TypeAdapter<BatchEntryResult> entryAdapter) {
+            super(gson, factory, AsyncJobStatus.class);
+            this.entryAdapter = entryAdapter;
+        }
+
+        @Override
+        AsyncJobStatus create() {
+            return new AsyncJobStatus();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String field, AsyncJobStatus model) throws IOException {
+            switch (field) {
+                case ".tag":
+                    model.setTag(in.nextString());
+                    return true;
+                case "async_job_id":
+                    model.setAsyncJobId(in.nextString());
+                    return true;
+                case "entries":
+                    model.setEntries(readList(in, entryAdapter));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static class BatchEntryResultAdapter extends ReadingAdapter<BatchEntryResult> {
+
+        BatchEntryResultAdapter(Gson gson, TypeAdapterFactory factory) {
+            super(gson, factory, BatchEntryResult.class);
+        }
+
+        @Override
+        BatchEntryResult create() {
+            return new BatchEntryResult();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String field, BatchEntryResult model) throws IOException {
+            switch (field) {
+                case ".tag":
+                    model.setTag(in.nextString());
+                    return true;
+                case "path_lower":
+                    model.setPathLower(in.nextString());
+                    return true;
+                case "failure":
+                    model.setFailureTag(readTagPath(in));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static class ErrorResponseAdapter extends ReadingAdapter<ErrorResponse> {
+
+        ErrorResponseAdapter(Gson gson, TypeAdapterFactory factory) {
+            super(gson, factory, ErrorResponse.class);
+        }
+
+        @Override
+        ErrorResponse create() {
+            return new ErrorResponse();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String field, ErrorResponse model) throws IOException {
+            switch (field) {
+                case "error":
+                    model.setError(readError(in));
+                    return true;
+                case "error_summary":
+                    model.setErrorSummary(in.nextString());
+                    return true;
+                case "user_message":
+                    model.setUserMessage(readUserMessage(in));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private static ErrorResponse.Error readError(JsonReader in) throws IOException {
+            ErrorResponse.Error error = new ErrorResponse.Error();
+            if (in.peek() == JsonToken.STRING) {
+                // A union without fields may come as its tag alone
+                error.setTag(in.nextString());
+                return error;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case ".tag":
+                        error.setTag(in.nextString());
+                        break;
+                    case "correct_offset":
+                        error.setCorrectOffset(in.nextLong());
+                        break;
+                    case "lookup_failed":
+                        error.setLookupFailed(readError(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return error;
+        }
+
+        /**
+         * The user message is a localized text object, older responses have a plain string.
+         */
+        private static String readUserMessage(JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                return in.nextString();
+            }
+            String text = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if ("text".equals(in.nextName()) && in.peek() == JsonToken.STRING) {
+                    text = in.nextString();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return text;
+        }
+    }
+
+    private static class FolderContentAdapter extends ReadingAdapter<FolderContent> {
+
+        private final TypeAdapter<Metadata> entryAdapter;
+
+        FolderContentAdapter(Gson gson, TypeAdapterFactory factory, TypeAdapter<Metadata> entryAdapter) {
+            super(gson, factory, FolderContent.class);
+            this.entryAdapter = entryAdapter;
+        }
+
+        @Override
+        FolderContent create() {
+            return new FolderContent();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String field, FolderContent model) throws IOException {
+            switch (field) {
+                case "entries":
+                    model.setEntries(readList(in, entryAdapter));
+                    return true;
+                case "cursor":
+                    model.setCursor(in.nextString());
+                    return true;
+                case "has_more":
+                    model.setHasMore(in.nextBoolean());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static class SessionAdapter extends ReadingAdapter<Session> {
+
+        SessionAdapter(Gson gson, TypeAdapterFactory factory) {
+            super(gson, factory, Session.class);
+        }
+
+        @Override
+        Session create() {
+            return new Session();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String field, Session model) throws IOException {
+            if ("session_id".equals(field)) {
+                model.setSessionId(in.nextString());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class TokenResponseAdapter extends ReadingAdapter<TokenResponse> {
+
+        TokenResponseAdapter(Gson gson, TypeAdapterFactory factory) {
+            super(gson, factory, TokenResponse.class);
+        }
+
+        @Override
+        TokenResponse create() {
+            return new TokenResponse();
+        }
+
+        @Override
+        boolean readField(JsonReader in, String field, TokenResponse model) throws IOException {
+            switch (field) {
+                case "access_token":
+                    model.setAccessToken(in.nextString());
+                    return true;
+                case "token_type":
+                    model.setTokenType(in.nextString());
+                    return true;
+                case "uid":
+                    model.setUid(in.nextString());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static <E> List<E> readList(JsonReader in, TypeAdapter<E> entryAdapter) throws IOException {
+        List<E> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(entryAdapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    /**
+     * @return the tag of a union value, given as an object or as its tag alone
+     */
+    private static String readTag(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.STRING) {
+            return in.nextString();
+        }
+        String tag = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (".tag".equals(in.nextName()) && in.peek() == JsonToken.STRING) {
+                tag = in.nextString();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return tag;
+    }
+
+    /**
+     * @return the tags of a union value and the union values nested in it, separated by slashes as in an error
+     * summary, such as path/conflict/folder
+     */
+    private static String readTagPath(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.STRING) {
+            return in.nextString();
+        }
+        String tag = null;
+        Map<String, String> nested = new HashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (".tag".equals(name) && in.peek() == JsonToken.STRING) {
+                tag = in.nextString();
+            } else if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                nested.put(name, readTagPath(in));
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        String inner = tag == null ? null : nested.get(tag);
+        return inner == null ? tag : tag + "/" + inner;
+    }
+}
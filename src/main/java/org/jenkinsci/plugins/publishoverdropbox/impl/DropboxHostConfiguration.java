@@ -40,6 +40,7 @@ import org.jenkinsci.plugins.publishoverdropbox.DropboxToken;
 import org.jenkinsci.plugins.publishoverdropbox.descriptor.DropboxHostConfigurationDescriptor;
 import org.jenkinsci.plugins.publishoverdropbox.domain.DropboxClient;
 import org.jenkinsci.plugins.publishoverdropbox.domain.DropboxV2;
+import org.jenkinsci.plugins.publishoverdropbox.domain.UploadTuning;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import java.io.IOException;
@@ -48,17 +49,55 @@ import java.util.List;
 public class DropboxHostConfiguration extends BPHostConfiguration<DropboxClient, Object> implements Describable<DropboxHostConfiguration> {
 
     public static final int DEFAULT_TIMEOUT = 300000;
+    public static final int DEFAULT_UPLOAD_WORKERS = 1;
+    public static final int DEFAULT_CHUNK_WORKERS = 1;
+    public static final int DEFAULT_MAX_CHUNK_SIZE = 0;
+    public static final int DEFAULT_READ_AHEAD_SIZE = 32;
+    private static final long MEGA_BYTE = 1024 * 1024;
     private static final long serialVersionUID = 1L;
     private DropboxToken token;
     private final int timeout;
+    private final int uploadWorkers;
+    private final int chunkWorkers;
+    private final boolean batchCommit;
+    private final int maxChunkSize;
+    private final boolean skipUnchanged;
+    private final String contentStore;
+    private final int readAheadSize;
+    private final boolean implicitFolders;
+    private final boolean replaceOnClean;
 
     @DataBoundConstructor
-    public DropboxHostConfiguration(final String name, final String token, final String remoteRootDir, final int timeout) {
+    public DropboxHostConfiguration(final String name, final String token, final String remoteRootDir, final int timeout,
+                                    final int uploadWorkers, final int chunkWorkers, final boolean batchCommit,
+                                    final int maxChunkSize, final boolean skipUnchanged, final String contentStore,
+                                    final int readAheadSize, final boolean implicitFolders,
+                                    final boolean replaceOnClean) {
         super(name, null, null, null, remoteRootDir, 0);
         this.timeout = timeout;
+        this.uploadWorkers = uploadWorkers;
+        this.chunkWorkers = chunkWorkers;
+        this.batchCommit = batchCommit;
+        this.maxChunkSize = maxChunkSize;
+        this.skipUnchanged = skipUnchanged;
+        this.contentStore = contentStore;
+        this.readAheadSize = readAheadSize;
+        this.implicitFolders = implicitFolders;
+        this.replaceOnClean = replaceOnClean;
         this.token = token == null ? null : lookupTokenId(token);
     }
 
+    /**
+     * Configuration with the upload options left at their defaults, as before these options existed.
+     *
+     * @deprecated use the constructor taking the upload options
+     */
+    @Deprecated
+    public DropboxHostConfiguration(final String name, final String token, final String remoteRootDir, final int timeout) {
+        this(name, token, remoteRootDir, timeout, DEFAULT_UPLOAD_WORKERS, DEFAULT_CHUNK_WORKERS, false,
+                DEFAULT_MAX_CHUNK_SIZE, false, null, 0, false, false);
+    }
+
     private DropboxToken lookupTokenId(String tokenId) {
         List<DropboxToken> credentials = CredentialsProvider.lookupCredentials(DropboxToken.class, Jenkins.getActiveInstance(), null, (DomainRequirement) null);
         for (DropboxToken token : credentials) {
@@ -77,6 +116,67 @@ public class DropboxHostConfiguration extends BPHostConfiguration<DropboxClient,
         this.token = token;
     }
 
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return number of files uploaded in parallel, configurations saved before this option existed use the default
+     */
+    public int getUploadWorkers() {
+        return uploadWorkers < 1 ? DEFAULT_UPLOAD_WORKERS : uploadWorkers;
+    }
+
+    /**
+     * @return number of chunks of a single large file uploaded in parallel
+     */
+    public int getChunkWorkers() {
+        return chunkWorkers < 1 ? DEFAULT_CHUNK_WORKERS : chunkWorkers;
+    }
+
+    public boolean isBatchCommit() {
+        return batchCommit;
+    }
+
+    /**
+     * @return largest chunk size in MB the measured throughput may select, 0 to upload in fixed size chunks
+     */
+    public int getMaxChunkSize() {
+        return Math.max(0, maxChunkSize);
+    }
+
+    public boolean isSkipUnchanged() {
+        return skipUnchanged;
+    }
+
+    /**
+     * @return absolute folder holding uploaded content by its hash, empty when not used
+     */
+    public String getContentStore() {
+        return contentStore;
+    }
+
+    /**
+     * @return MB of chunks read ahead per file while the current chunk is sent, 0 to read each chunk when it is sent
+     */
+    public int getReadAheadSize() {
+        return Math.max(0, readAheadSize);
+    }
+
+    /**
+     * @return folders are created by the files written in them, only empty folders are created explicitly
+     */
+    public boolean isImplicitFolders() {
+        return implicitFolders;
+    }
+
+    /**
+     * @return clean the remote directory by deleting it as a whole and creating it again
+     */
+    public boolean isReplaceOnClean() {
+        return replaceOnClean;
+    }
+
     @Override
     public DropboxClient createClient(final BPBuildInfo buildInfo) {
         final DropboxClient client = new DropboxClient(createDropbox(), buildInfo);
@@ -106,6 +206,15 @@ public class DropboxHostConfiguration extends BPHostConfiguration<DropboxClient,
 
     private void configureDropboxclient(final DropboxClient client) {
         client.setTimeout(timeout);
+        client.setUploadWorkers(getUploadWorkers());
+        client.setChunkWorkers(getChunkWorkers());
+        client.setBatchCommit(batchCommit);
+        client.setUploadTuning(getMaxChunkSize() > 0 ? UploadTuning.forHost(getName(), getMaxChunkSize() * MEGA_BYTE) : null);
+        client.setSkipUnchanged(skipUnchanged);
+        client.setContentStore(contentStore);
+        client.setReadAheadSize(getReadAheadSize() * MEGA_BYTE);
+        client.setImplicitFolders(implicitFolders);
+        client.setReplaceOnClean(replaceOnClean);
         client.setToken(Secret.toString(token.getAuthorizationCode()));
     }
 
@@ -128,19 +237,46 @@ public class DropboxHostConfiguration extends BPHostConfiguration<DropboxClient,
     protected HashCodeBuilder addToHashCode(final HashCodeBuilder builder) {
         return super.addToHashCode(builder)
                 .append(token)
-                .append(timeout);
+                .append(timeout)
+                .append(uploadWorkers)
+                .append(chunkWorkers)
+                .append(batchCommit)
+                .append(maxChunkSize)
+                .append(skipUnchanged)
+                .append(contentStore)
+                .append(readAheadSize)
+                .append(implicitFolders)
+                .append(replaceOnClean);
     }
 
     protected EqualsBuilder addToEquals(final EqualsBuilder builder, final DropboxHostConfiguration that) {
         return super.addToEquals(builder, that)
                 .append(token, that.token)
-                .append(timeout, that.timeout);
+                .append(timeout, that.timeout)
+                .append(uploadWorkers, that.uploadWorkers)
+                .append(chunkWorkers, that.chunkWorkers)
+                .append(batchCommit, that.batchCommit)
+                .append(maxChunkSize, that.maxChunkSize)
+                .append(skipUnchanged, that.skipUnchanged)
+                .append(contentStore, that.contentStore)
+                .append(readAheadSize, that.readAheadSize)
+                .append(implicitFolders, that.implicitFolders)
+                .append(replaceOnClean, that.replaceOnClean);
     }
 
     protected ToStringBuilder addToToString(final ToStringBuilder builder) {
         return super.addToToString(builder)
                 .append("token", token)
-                .append("timeout", timeout);
+                .append("timeout", timeout)
+                .append("uploadWorkers", uploadWorkers)
+                .append("chunkWorkers", chunkWorkers)
+                .append("batchCommit", batchCommit)
+                .append("maxChunkSize", maxChunkSize)
+                .append("skipUnchanged", skipUnchanged)
+                .append("contentStore", contentStore)
+                .append("readAheadSize", readAheadSize)
+                .append("implicitFolders", implicitFolders)
+                .append("replaceOnClean", replaceOnClean);
     }
 
     public boolean equals(final Object that) {
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Session;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+public class BatchCommitterTest {
+
+    private static final String FINISH_BATCH = "/2/files/upload_session/finish_batch";
+    private static final String FINISH_BATCH_CHECK = "/2/files/upload_session/finish_batch/check";
+    private static final String SUCCESS = "{\".tag\":\"success\",\"name\":\"a.txt\",\"path_lower\":\"/out/a.txt\"}";
+
+    // Answers of the job checks, in order, the last one repeats
+    private final List<String> checks = new ArrayList<>();
+    private FakeTransport transport;
+    private BatchCommitter sut;
+
+    private static Session session(String id) {
+        Session session = new Session();
+        session.setSessionId(id);
+        return session;
+    }
+
+    private static String complete(String... entries) {
+        return "{\".tag\":\"complete\",\"entries\":[" + String.join(",", entries) + "]}";
+    }
+
+    @Before
+    public void setUp() {
+        transport = new FakeTransport(request -> {
+            switch (request.getEndpoint()) {
+                case FINISH_BATCH:
+                    return FakeTransport.ok("{\".tag\":\"async_job_id\",\"async_job_id\":\"job\"}");
+                case FINISH_BATCH_CHECK:
+                    return FakeTransport.ok(checks.size() > 1 ? checks.remove(0) : checks.get(0));
+                default:
+                    throw new IOException("Unexpected " + request.getEndpoint());
+            }
+        });
+        DropboxV2 dropbox = new DropboxV2("token");
+        dropbox.transport = transport;
+        sut = new BatchCommitter(dropbox);
+    }
+
+    @Test
+    public void pollsJobUntilComplete() {
+        // Arrange
+        checks.add("{\".tag\":\"in_progress\"}");
+        checks.add("{\".tag\":\"in_progress\"}");
+        checks.add(complete(SUCCESS, SUCCESS));
+        sut.add("/out/a.txt", session("a"), 10);
+        sut.add("/out/b.txt", session("b"), 20);
+        // Act
+        List<String> failures = sut.commit();
+        // Assert
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(transport.getRequests(FINISH_BATCH).size(), is(1));
+        assertThat(transport.getRequests(FINISH_BATCH_CHECK).size(), is(3));
+        assertThat(transport.getRequests(FINISH_BATCH).get(0).getArg().getAsJsonArray("entries").size(), is(2));
+    }
+
+    @Test
+    public void mapsEntryFailureToItsFile() {
+        // Arrange
+        checks.add(complete(SUCCESS,
+                "{\".tag\":\"failure\",\"failure\":{\".tag\":\"path\",\"path\":{\".tag\":\"conflict\",\"conflict\":{\".tag\":\"file\"}}}}",
+                SUCCESS));
+        sut.add("/out/a.txt", session("a"), 10);
+        sut.add("/out/b.txt", session("b"), 20);
+        sut.add("/out/c.txt", session("c"), 30);
+        // Act
+        List<String> failures = sut.commit();
+        // Assert
+        assertThat(failures.size(), is(1));
+        assertThat(failures.get(0), containsString("/out/b.txt"));
+        assertThat(failures.get(0), containsString("path/conflict/file"));
+    }
+
+    @Test
+    public void failsAllFilesWhenResultsDoNotMatch() {
+        // Arrange
+        checks.add(complete(SUCCESS, SUCCESS));
+        sut.add("/out/a.txt", session("a"), 10);
+        sut.add("/out/b.txt", session("b"), 20);
+        sut.add("/out/c.txt", session("c"), 30);
+        // Act
+        List<String> failures = sut.commit();
+        // Assert
+        assertThat(failures.size(), is(3));
+        assertThat(failures.get(2), containsString("/out/c.txt"));
+    }
+
+    @Test
+    public void failsAllFilesOfFailedJob() {
+        // Arrange
+        checks.add("{\".tag\":\"failed\"}");
+        sut.add("/out/a.txt", session("a"), 10);
+        sut.add("/out/b.txt", session("b"), 20);
+        // Act
+        List<String> failures = sut.commit();
+        // Assert
+        assertThat(failures.size(), is(2));
+        assertThat(failures.get(0), containsString("/out/a.txt"));
+    }
+}
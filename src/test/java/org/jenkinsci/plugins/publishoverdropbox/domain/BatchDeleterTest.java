@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+public class BatchDeleterTest {
+
+    private final Fixtures.StubDropbox dropbox = new Fixtures.StubDropbox();
+
+    @Test
+    public void sendsFullBatchesWhileAdding() {
+        // Arrange
+        BatchDeleter sut = new BatchDeleter(dropbox);
+
+        // Act
+        for (int i = 0; i <= DropboxV2.MAX_BATCH_ENTRIES; i++) {
+            sut.add("/build" + i);
+        }
+        int sentBeforeFinish = dropbox.batches.size();
+        List<String> failures = sut.finish();
+
+        // Assert
+        assertThat(sentBeforeFinish, is(1));
+        assertThat(dropbox.batches.size(), is(2));
+        assertThat(dropbox.batches.get(1), contains("/build" + DropboxV2.MAX_BATCH_ENTRIES));
+        assertThat(failures.isEmpty(), is(true));
+    }
+
+    @Test
+    public void reportsFailedEntries() {
+        // Arrange
+        BatchDeleter sut = new BatchDeleter(dropbox);
+        dropbox.fail("/locked", "path_write/no_write_permission");
+        dropbox.fail("/gone", "path_lookup/not_found");
+        sut.add("/old");
+        sut.add("/locked");
+        sut.add("/gone");
+
+        // Act
+        List<String> failures = sut.finish();
+
+        // Assert
+        assertThat(failures.size(), is(1));
+        assertThat(failures.get(0), containsString("/locked"));
+    }
+
+    @Test
+    public void retriesEntriesWithTooManyWrites() {
+        // Arrange
+        BatchDeleter sut = new BatchDeleter(dropbox);
+        dropbox.fail("/busy", "too_many_write_operations");
+        sut.add("/old");
+        sut.add("/busy");
+
+        // Act
+        List<String> failures = sut.finish();
+
+        // Assert
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(dropbox.batches.size(), is(2));
+        assertThat(dropbox.batches.get(1), contains("/busy"));
+    }
+
+    @Test
+    public void reportsEveryPathOfAFailedBatch() {
+        // Arrange
+        BatchDeleter sut = new BatchDeleter(dropbox);
+        dropbox.failBatchOf("/offline");
+        sut.add("/old");
+        sut.add("/offline");
+
+        // Act
+        List<String> failures = sut.finish();
+
+        // Assert
+        assertThat(failures.size(), is(2));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ChunkBufferPoolTest {
+
+    @Test
+    public void releasedBufferIsReused() throws InterruptedException {
+        // Arrange
+        ChunkBufferPool sut = new ChunkBufferPool(1000);
+        ByteBuffer first = sut.acquire(100);
+        sut.release(first);
+        // Act
+        ByteBuffer second = sut.acquire(100);
+        // Assert
+        assertThat(second, is(sameInstance(first)));
+        assertThat(second.isDirect(), is(true));
+    }
+
+    @Test
+    public void exhaustedPoolWaitsForRelease() throws Exception {
+        // Arrange
+        ChunkBufferPool sut = new ChunkBufferPool(200);
+        ByteBuffer first = sut.acquire(100);
+        sut.acquire(100);
+        CompletableFuture<ByteBuffer> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return sut.acquire(100);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(isWaiting(third), is(true));
+        // Act
+        sut.release(first);
+        // Assert
+        assertThat(third.get(10, TimeUnit.SECONDS), is(sameInstance(first)));
+        assertThat(sut.getWaits(), is(1L));
+    }
+
+    @Test
+    public void exhaustedPoolIsNotWaitedForWhenTrying() throws InterruptedException {
+        // Arrange
+        ChunkBufferPool sut = new ChunkBufferPool(200);
+        ByteBuffer first = sut.acquire(100);
+        sut.acquire(100);
+        // Act
+        ByteBuffer third = sut.tryAcquire(100);
+        sut.release(first);
+        ByteBuffer fourth = sut.tryAcquire(100);
+        // Assert
+        assertThat(third, is(nullValue()));
+        assertThat(fourth, is(sameInstance(first)));
+        assertThat(sut.getWaits(), is(0L));
+    }
+
+    @Test
+    public void idleBuffersOfOtherSizeMakeRoom() throws InterruptedException {
+        // Arrange
+        ChunkBufferPool sut = new ChunkBufferPool(200);
+        sut.release(sut.acquire(150));
+        // Act
+        sut.acquire(100);
+        // Assert
+        assertThat(sut.getIdleBytes(), is(0L));
+        assertThat(sut.getWaits(), is(0L));
+    }
+
+    @Test
+    public void fillReadsSizeFromStart() throws IOException {
+        // Arrange
+        ByteBuffer buffer = ByteBuffer.allocateDirect(10);
+        buffer.position(5);
+        // Act
+        ChunkBufferPool.fill(buffer, new ByteArrayInputStream(new byte[]{1, 2, 3, 4}), 3);
+        // Assert
+        assertThat(buffer.position(), is(0));
+        assertThat(buffer.limit(), is(3));
+        assertThat(buffer.get(2), is((byte) 3));
+    }
+
+    private static boolean isWaiting(CompletableFuture<ByteBuffer> future) throws InterruptedException, ExecutionException {
+        try {
+            future.get(100, TimeUnit.MILLISECONDS);
+            return false;
+        } catch (TimeoutException e) {
+            return true;
+        }
+    }
+}
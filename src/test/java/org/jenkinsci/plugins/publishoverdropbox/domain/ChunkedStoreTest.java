@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ChunkedStoreTest {
+
+    private static final String START = "/2/files/upload_session/start";
+    private static final String APPEND = "/2/files/upload_session/append_v2";
+    private static final String FINISH = "/2/files/upload_session/finish";
+    private static final int CHUNK_SIZE = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final byte[] bytes = Fixtures.createBytes(450);
+    private long expectedOffset;
+    private String rejection;
+    private FakeTransport transport;
+    private DropboxV2 sut;
+
+    private static long checksum(byte[] bytes, int length) {
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 0, length);
+        return checksum.getValue();
+    }
+
+    @Before
+    public void setUp() {
+        transport = new FakeTransport(request -> {
+            switch (request.getEndpoint()) {
+                case START:
+                    expectedOffset = request.getBody().length;
+                    return FakeTransport.ok("{\"session_id\":\"new\"}");
+                case APPEND:
+                case FINISH:
+                    long offset = request.getArg().getAsJsonObject("cursor").get("offset").getAsLong();
+                    if (rejection != null) {
+                        String error = rejection;
+                        rejection = null;
+                        return FakeTransport.conflict(error);
+                    }
+                    if (offset != expectedOffset) {
+                        return FakeTransport.conflict("{\"error_summary\":\"incorrect_offset/..\",\"error\":"
+                                + "{\".tag\":\"incorrect_offset\",\"correct_offset\":" + expectedOffset + "}}");
+                    }
+                    assertThat(Arrays.copyOfRange(bytes, (int) offset, (int) offset + request.getBody().length),
+                            is(request.getBody()));
+                    expectedOffset += request.getBody().length;
+                    return FakeTransport.ok(FINISH.equals(request.getEndpoint())
+                            ? "{\".tag\":\"file\",\"name\":\"file.bin\",\"path_lower\":\"/file.bin\"}" : "null");
+                default:
+                    throw new IOException("Unexpected " + request.getEndpoint());
+            }
+        });
+        sut = new DropboxV2("token");
+        sut.transport = transport;
+        sut.chunkSize = CHUNK_SIZE;
+    }
+
+    private List<Long> offsets(String endpoint) {
+        List<Long> offsets = new ArrayList<>();
+        for (FakeTransport.Request request : transport.getRequests(endpoint)) {
+            offsets.add(request.getArg().getAsJsonObject("cursor").get("offset").getAsLong());
+        }
+        return offsets;
+    }
+
+    @Test
+    public void resumesAtRememberedOffset() throws RestException {
+        // Arrange
+        String key = ResumableSessions.key("token", "/resumed.bin", bytes.length);
+        ResumableSessions.remember(key, "earlier", 200, checksum(bytes, 200));
+        expectedOffset = 200;
+        // Act
+        sut.storeFile("/resumed.bin", new ByteArrayInputStream(bytes), bytes.length);
+        // Assert
+        assertThat(transport.getRequests(START).size(), is(0));
+        assertThat(offsets(APPEND), contains(200L, 200L, 300L));
+        assertThat(offsets(FINISH), contains(400L));
+        assertThat(ResumableSessions.lookup(key), is(nullValue()));
+    }
+
+    @Test
+    public void resumesAtEarlierOffsetOfSession() throws RestException {
+        // Arrange
+        String key = ResumableSessions.key("token", "/resynced.bin", bytes.length);
+        ResumableSessions.remember(key, "earlier", 300, checksum(bytes, 300));
+        expectedOffset = 200;
+        // Act
+        sut.storeFile("/resynced.bin", new ByteArrayInputStream(bytes), bytes.length);
+        // Assert
+        assertThat(transport.getRequests(START).size(), is(0));
+        assertThat(offsets(APPEND), contains(300L, 200L, 300L));
+        assertThat(offsets(FINISH), contains(400L));
+    }
+
+    @Test
+    public void startsOverWhenSessionExpectsUnconfirmedBytes() throws RestException {
+        // Arrange
+        String key = ResumableSessions.key("token", "/ahead.bin", bytes.length);
+        ResumableSessions.remember(key, "earlier", 100, checksum(bytes, 100));
+        expectedOffset = 200;
+        // Act
+        sut.storeFile("/ahead.bin", new ByteArrayInputStream(bytes), bytes.length);
+        // Assert
+        assertThat(transport.getRequests(START).size(), is(1));
+        assertThat(offsets(APPEND), contains(100L, 100L, 200L, 300L));
+    }
+
+    @Test
+    public void startsOverWhenSessionIsNotFound() throws RestException {
+        // Arrange
+        String key = ResumableSessions.key("token", "/expired.bin", bytes.length);
+        ResumableSessions.remember(key, "earlier", 200, checksum(bytes, 200));
+        rejection = "{\"error_summary\":\"not_found/..\",\"error\":{\".tag\":\"not_found\"}}";
+        // Act
+        sut.storeFile("/expired.bin", new ByteArrayInputStream(bytes), bytes.length);
+        // Assert
+        assertThat(transport.getRequests(START).size(), is(1));
+        assertThat(offsets(APPEND), contains(200L, 100L, 200L, 300L));
+        assertThat(offsets(FINISH), contains(400L));
+    }
+
+    @Test
+    public void resumesFileWithSameLastModified() throws RestException, IOException {
+        // Arrange
+        File file = folder.newFile("same.bin");
+        Files.write(file.toPath(), bytes);
+        String key = ResumableSessions.key("token", "/same.bin", bytes.length);
+        ResumableSessions.rememberFile(key, "earlier", 200, file.lastModified());
+        expectedOffset = 200;
+        // Act
+        sut.storeFile("/same.bin", file, bytes.length);
+        // Assert
+        assertThat(transport.getRequests(START).size(), is(0));
+        assertThat(offsets(APPEND), contains(200L, 200L, 300L));
+    }
+
+    @Test
+    public void startsOverWhenFileWasModified() throws RestException, IOException {
+        // Arrange
+        File file = folder.newFile("modified.bin");
+        Files.write(file.toPath(), bytes);
+        String key = ResumableSessions.key("token", "/modified.bin", bytes.length);
+        ResumableSessions.rememberFile(key, "earlier", 200, file.lastModified() - 1000);
+        // Act
+        sut.storeFile("/modified.bin", file, bytes.length);
+        // Assert
+        assertThat(transport.getRequests(START).size(), is(1));
+        assertThat(offsets(APPEND), contains(100L, 200L, 300L));
+    }
+
+}
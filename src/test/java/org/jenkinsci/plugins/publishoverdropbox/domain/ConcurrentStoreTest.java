@@ -0,0 +1,154 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongUnaryOperator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class ConcurrentStoreTest {
+
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final String START = "/2/files/upload_session/start";
+    private static final String APPEND = "/2/files/upload_session/append_v2";
+    private static final String FINISH = "/2/files/upload_session/finish";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final Map<Long, byte[]> appended = new ConcurrentSkipListMap<>();
+    private final List<Long> arrived = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> closing = Collections.synchronizedList(new ArrayList<>());
+    private volatile LongUnaryOperator appendDelay = offset -> 0;
+    private FakeTransport transport;
+    private DropboxV2 sut;
+
+    @Before
+    public void setUp() {
+        transport = new FakeTransport(request -> {
+            switch (request.getEndpoint()) {
+                case START:
+                    return FakeTransport.ok("{\"session_id\":\"session\"}");
+                case APPEND:
+                    long offset = request.getArg().getAsJsonObject("cursor").get("offset").getAsLong();
+                    sleep(appendDelay.applyAsLong(offset));
+                    appended.put(offset, request.getBody());
+                    arrived.add(offset);
+                    if (request.getArg().get("close").getAsBoolean()) {
+                        closing.add(offset);
+                    }
+                    return FakeTransport.ok("null");
+                case FINISH:
+                    String path = request.getArg().getAsJsonObject("commit").get("path").getAsString();
+                    return FakeTransport.ok("{\".tag\":\"file\",\"name\":\"big.bin\",\"path_lower\":\"" + path + "\"}");
+                default:
+                    throw new IOException("Unexpected " + request.getEndpoint());
+            }
+        });
+        sut = new DropboxV2("token");
+        sut.transport = transport;
+        sut.setChunkWorkers(3);
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private byte[] stored() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long expected = 0;
+        for (Map.Entry<Long, byte[]> entry : appended.entrySet()) {
+            assertThat(entry.getKey(), is(expected));
+            out.write(entry.getValue());
+            expected += entry.getValue().length;
+        }
+        return out.toByteArray();
+    }
+
+    @Test(timeout = 60000)
+    public void storesWithPoolSmallerThanChunkWorkers() throws RestException, IOException {
+        // Arrange
+        sut.bufferPool = new ChunkBufferPool(2L * CHUNK_SIZE);
+        appendDelay = offset -> 50;
+        byte[] bytes = Fixtures.createBytes(5 * CHUNK_SIZE + 10);
+        // Act
+        sut.storeFile("/big.bin", new ByteArrayInputStream(bytes), bytes.length);
+        // Assert
+        assertThat(stored(), is(bytes));
+        assertThat(sut.bufferPool.getPeakBytes(), is(2L * CHUNK_SIZE));
+        assertThat(sut.bufferPool.getInUseBytes(), is(0L));
+    }
+
+    @Test(timeout = 60000)
+    public void appendsMayFinishOutOfOrder() throws RestException, IOException {
+        // Arrange
+        byte[] bytes = Fixtures.createBytes(3 * CHUNK_SIZE + 10);
+        // Later chunks are answered first
+        appendDelay = offset -> 300 - offset / CHUNK_SIZE * 100;
+        // Act
+        sut.storeFile("/big.bin", new ByteArrayInputStream(bytes), bytes.length);
+        // Assert
+        assertThat(arrived.get(0) > 0, is(true));
+        assertThat(stored(), is(bytes));
+        assertThat(closing, contains(3L * CHUNK_SIZE));
+        assertThat(transport.getRequests(FINISH).get(0).getArg().getAsJsonObject("cursor").get("offset").getAsLong(),
+                is((long) bytes.length));
+    }
+
+    @Test(timeout = 60000)
+    public void fileAppendsMayFinishOutOfOrder() throws RestException, IOException {
+        // Arrange
+        byte[] bytes = Fixtures.createBytes(3 * CHUNK_SIZE + 10);
+        File file = folder.newFile("big.bin");
+        Files.write(file.toPath(), bytes);
+        appendDelay = offset -> 300 - offset / CHUNK_SIZE * 100;
+        // Act
+        sut.storeFile("/big.bin", file, bytes.length);
+        // Assert
+        assertThat(arrived.get(0) > 0, is(true));
+        assertThat(stored(), is(bytes));
+        assertThat(closing, contains(3L * CHUNK_SIZE));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class ContentHashCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File store;
+    private File file;
+    private long modified;
+
+    @Before
+    public void setUp() throws IOException {
+        store = new File(folder.getRoot(), "cache/content-hashes.bin");
+        file = folder.newFile("artifact.txt");
+        modified = (System.currentTimeMillis() - 60000) / 1000 * 1000;
+        write(file, "first", modified);
+    }
+
+    @Test
+    public void reusesHashOfUnchangedFile() throws IOException {
+        // Arrange
+        ContentHashCache sut = new ContentHashCache(store);
+        String first = sut.hash(file);
+        write(file, "other", modified);
+        // Act
+        String second = sut.hash(file);
+        // Assert
+        assertThat(second, is(first));
+    }
+
+    @Test
+    public void rehashesModifiedFile() throws IOException {
+        // Arrange
+        ContentHashCache sut = new ContentHashCache(store);
+        String first = sut.hash(file);
+        write(file, "other", modified + 1000);
+        // Act
+        String second = sut.hash(file);
+        // Assert
+        assertThat(second, is(not(first)));
+    }
+
+    @Test
+    public void keepsHashesAcrossInstances() throws IOException {
+        // Arrange
+        ContentHashCache cache = new ContentHashCache(store);
+        String first = cache.hash(file);
+        cache.save();
+        write(file, "other", modified);
+        ContentHashCache sut = new ContentHashCache(store);
+        // Act
+        String second = sut.hash(file);
+        // Assert
+        assertThat(second, is(first));
+    }
+
+    @Test
+    public void skipsRecentlyModifiedFiles() throws IOException {
+        // Arrange
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        write(file, "first", now);
+        ContentHashCache sut = new ContentHashCache(store);
+        String first = sut.hash(file);
+        write(file, "other", now);
+        // Act
+        String second = sut.hash(file);
+        // Assert
+        assertThat(second, is(not(first)));
+    }
+
+    @Test
+    public void savesAgainAfterFailedSave() throws IOException {
+        // Arrange
+        File blocker = folder.newFile("blocker");
+        File blocked = new File(blocker, "content-hashes.bin");
+        ContentHashCache sut = new ContentHashCache(blocked);
+        sut.hash(file);
+        try {
+            sut.save();
+        } catch (IOException expected) {
+            // The folder of the store is a file
+        }
+        blocker.delete();
+        // Act
+        sut.save();
+        // Assert
+        assertThat(blocked.isFile(), is(true));
+    }
+
+    @Test
+    public void dropsEntriesOfDeletedFiles() throws IOException {
+        // Arrange
+        File deleted = folder.newFile("deleted.txt");
+        write(deleted, "gone", modified);
+        ContentHashCache cache = new ContentHashCache(store);
+        cache.hash(file);
+        cache.hash(deleted);
+        deleted.delete();
+        // Act
+        cache.save();
+        // Assert
+        assertThat(cache.size(), is(1));
+        assertThat(new ContentHashCache(store).size(), is(1));
+    }
+
+    @Test
+    public void keepsMostRecentlyUsedEntries() throws IOException {
+        // Arrange
+        File second = folder.newFile("second.txt");
+        File third = folder.newFile("third.txt");
+        write(second, "second", modified);
+        write(third, "third", modified);
+        ContentHashCache cache = new ContentHashCache(store, 2);
+        String first = cache.hash(file);
+        String evicted = cache.hash(second);
+        cache.hash(third);
+        cache.hash(file);
+        cache.save();
+        write(file, "other", modified);
+        write(second, "other", modified);
+        ContentHashCache sut = new ContentHashCache(store, 2);
+        // Act
+        String firstAgain = sut.hash(file);
+        String secondAgain = sut.hash(second);
+        // Assert
+        assertThat(firstAgain, is(first));
+        assertThat(secondAgain, is(not(evicted)));
+    }
+
+    private static void write(File file, String content, long modified) throws IOException {
+        Files.write(file.toPath(), content.getBytes("UTF-8"));
+        file.setLastModified(modified);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ContentHashTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void hashesEmptyContent() throws IOException {
+        // Act
+        String hash = ContentHash.hash(new ByteArrayInputStream(new byte[0]));
+        // Assert
+        assertThat(hash, is("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855"));
+    }
+
+    @Test
+    public void hashesSingleBlock() throws IOException {
+        // Act
+        String hash = ContentHash.hash(new ByteArrayInputStream("Dropbox".getBytes("UTF-8")));
+        // Assert
+        assertThat(hash, is("9342f1ec1fbd539adc58074015ab774d6231fab346ae15161f1bd886cb861b72"));
+    }
+
+    @Test
+    public void hashesMultipleBlocks() throws IOException {
+        // Act
+        String hash = ContentHash.hash(new ByteArrayInputStream(Fixtures.createBytes(2 * ContentHash.BLOCK_SIZE + 100)));
+        // Assert
+        assertThat(hash, is("25a7fcd6fbef1e9a241e568790c4455b32a9a9786a891109a9b593109d0ca31d"));
+    }
+
+    @Test
+    public void hashesFileBlocksInParallel() throws IOException {
+        // Arrange
+        File file = folder.newFile("content.bin");
+        Files.write(file.toPath(), Fixtures.createBytes(2 * ContentHash.BLOCK_SIZE + 100));
+        // Act
+        String hash = ContentHash.hash(file);
+        // Assert
+        assertThat(hash, is("25a7fcd6fbef1e9a241e568790c4455b32a9a9786a891109a9b593109d0ca31d"));
+    }
+}
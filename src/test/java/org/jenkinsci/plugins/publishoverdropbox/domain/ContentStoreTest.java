@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+public class ContentStoreTest {
+
+    private static final String STORE = "/store";
+
+    private final Fixtures.StubDropbox dropbox = new Fixtures.StubDropbox();
+    private final List<String> uploaded = new ArrayList<>();
+
+    private ParallelUploader.Task upload(String path) {
+        return () -> {
+            uploaded.add(path);
+            if (path.contains("broken")) {
+                throw new IOException("broken");
+            }
+        };
+    }
+
+    private ContentStore createStore() throws RestException {
+        ContentStore sut = new ContentStore(dropbox, STORE);
+        sut.list();
+        return sut;
+    }
+
+    @Test
+    public void placesStoredContentWithoutUpload() throws RestException {
+        // Arrange
+        dropbox.files.add("/store/hash1");
+        ContentStore sut = createStore();
+        boolean first = sut.place("hash1", "/out/a.jar", 10, upload("/out/a.jar"));
+        boolean second = sut.place("hash1", "/out/b.jar", 10, upload("/out/b.jar"));
+        boolean missing = sut.place("hash2", "/out/c.jar", 10, upload("/out/c.jar"));
+        // Act
+        List<String> failures = sut.commit();
+        // Assert
+        assertThat(first && second, is(true));
+        assertThat(missing, is(false));
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(dropbox.copied, contains("/store/hash1 > /out/a.jar", "/store/hash1 > /out/b.jar"));
+        assertThat(uploaded.isEmpty(), is(true));
+        assertThat(sut.getPlacedFiles(), is(2));
+        assertThat(sut.getPlacedBytes(), is(20L));
+    }
+
+    @Test
+    public void replacesExistingDestinations() throws RestException {
+        // Arrange
+        dropbox.files.add("/store/hash1");
+        dropbox.files.add("/out/a.jar");
+        ContentStore sut = createStore();
+        sut.place("hash1", "/out/a.jar", 10, upload("/out/a.jar"));
+        sut.place("hash1", "/out/b.jar", 10, upload("/out/b.jar"));
+        // Act
+        List<String> failures = sut.commit();
+        // Assert
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(dropbox.deleted, contains("/out/a.jar"));
+        assertThat(dropbox.copied, contains("/store/hash1 > /out/a.jar", "/store/hash1 > /out/b.jar", "/store/hash1 > /out/a.jar"));
+        assertThat(uploaded.isEmpty(), is(true));
+        assertThat(sut.getPlacedFiles(), is(2));
+    }
+
+    @Test
+    public void replacesExistingDestinationOfSingleCopy() throws RestException {
+        // Arrange
+        dropbox.files.add("/store/hash1");
+        dropbox.files.add("/out/a.jar");
+        ContentStore sut = createStore();
+        sut.place("hash1", "/out/a.jar", 10, upload("/out/a.jar"));
+        // Act
+        List<String> failures = sut.commit();
+        // Assert
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(dropbox.deleted, contains("/out/a.jar"));
+        assertThat(uploaded.isEmpty(), is(true));
+        assertThat(sut.getPlacedFiles(), is(1));
+    }
+
+    @Test
+    public void uploadsWhenCopyFails() throws RestException {
+        // Arrange
+        dropbox.files.add("/store/hash1");
+        ContentStore sut = createStore();
+        sut.place("hash1", "/out/a.jar", 10, upload("/out/a.jar"));
+        sut.place("hash1", "/out/broken.jar", 10, upload("/out/broken.jar"));
+        dropbox.files.remove("/store/hash1");
+        // Act
+        List<String> failures = sut.commit();
+        // Assert
+        assertThat(uploaded, contains("/out/a.jar", "/out/broken.jar"));
+        assertThat(dropbox.deleted.isEmpty(), is(true));
+        assertThat(failures.size(), is(1));
+        assertThat(failures.get(0), containsString("/out/broken.jar"));
+        assertThat(sut.getPlacedFiles(), is(0));
+    }
+
+    @Test
+    public void capturesBeforePlacing() throws RestException {
+        // Arrange
+        dropbox.files.add("/out/new.jar");
+        ContentStore sut = createStore();
+        sut.capture("hash3", "/out/new.jar");
+        boolean placed = sut.place("hash3", "/out/copy.jar", 10, upload("/out/copy.jar"));
+        // Act
+        List<String> failures = sut.commit();
+        // Assert
+        assertThat(placed, is(true));
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(dropbox.copied, contains("/out/new.jar > /store/hash3", "/store/hash3 > /out/copy.jar"));
+    }
+}
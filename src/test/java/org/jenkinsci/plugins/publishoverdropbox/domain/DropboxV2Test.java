@@ -38,6 +38,7 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -199,6 +200,25 @@ public class DropboxV2Test {
         assertThat(contents.getEntries().size(), is(0));
     }
 
+    @Test
+    public void testCleanWorkingFolderByReplacing() throws RestException, UnsupportedEncodingException {
+        // Arrange
+        sut.setReplaceOnClean(true);
+        sut.makeDirectory("tests");
+        sut.changeWorkingDirectory("tests");
+        final byte[] bytes = "Hello world".getBytes("UTF-8");
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        sut.storeFile("simplefile.txt", inputStream, bytes.length);
+        // Act
+        List<String> failures = sut.cleanWorkingFolder();
+        // Assert
+        assertThat(failures.isEmpty(), is(true));
+        FolderMetadata metaData = (FolderMetadata) sut.retrieveMetaData("/tests");
+        assertThat(metaData.getName(), is("tests"));
+        FolderContent contents = sut.listFilesOfFolder(metaData);
+        assertThat(contents.getEntries().size(), is(0));
+    }
+
     @Test
     public void testUploadTwoChunks() throws RestException, UnsupportedEncodingException {
         // Arrange
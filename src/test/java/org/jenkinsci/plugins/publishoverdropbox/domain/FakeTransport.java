@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers the requests of {@link DropboxV2} without a network, the handler decides the reply per request.
+ */
+class FakeTransport implements HttpTransport {
+
+    private final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+    private final Handler handler;
+
+    FakeTransport(Handler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public Response execute(String method, URL url, Map<String, String> headers, InputStream body, long contentLength,
+                            int timeout) throws IOException {
+        byte[] content = body == null ? new byte[0] : IOUtils.toByteArray(body);
+        String arg = headers.get("Dropbox-API-Arg");
+        if (arg == null) {
+            arg = new String(content, StandardCharsets.UTF_8);
+        }
+        Request request = new Request(url.getPath(), arg, content);
+        requests.add(request);
+        return handler.handle(request);
+    }
+
+    /**
+     * @param endpoint path of the API call, like {@code /2/files/upload_session/append_v2}
+     * @return the requests made to the endpoint, in the order they were made
+     */
+    List<Request> getRequests(String endpoint) {
+        List<Request> matching = new ArrayList<>();
+        synchronized (requests) {
+            for (Request request : requests) {
+                if (request.getEndpoint().equals(endpoint)) {
+                    matching.add(request);
+                }
+            }
+        }
+        return matching;
+    }
+
+    static Reply ok(String json) {
+        return new Reply(200, json);
+    }
+
+    static Reply conflict(String json) {
+        return new Reply(409, json);
+    }
+
+    interface Handler {
+        Reply handle(Request request) throws IOException;
+    }
+
+    static final class Request {
+        private final String endpoint;
+        private final String arg;
+        private final byte[] body;
+
+        private Request(String endpoint, String arg, byte[] body) {
+            this.endpoint = endpoint;
+            this.arg = arg;
+            this.body = body;
+        }
+
+        String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * @return the arguments of the call, from the header of an upload or else from the body
+         */
+        JsonObject getArg() {
+            return arg.isEmpty() ? new JsonObject() : new JsonParser().parse(arg).getAsJsonObject();
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+    }
+
+    static final class Reply implements Response {
+        private final int code;
+        private final String json;
+
+        private Reply(int code, String json) {
+            this.code = code;
+            this.json = json;
+        }
+
+        @Override
+        public int getCode() {
+            return code;
+        }
+
+        @Override
+        public String getMessage() {
+            return code == 200 ? "OK" : "Error";
+        }
+
+        @Override
+        public InputStream getContent() {
+            return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public long getSendNanos() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class FileRegionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileChannel open(byte[] content) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), content);
+        return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    @Test
+    public void readsOnlyTheRegion() throws IOException {
+        // Arrange
+        byte[] bytes = Fixtures.createBytes(100);
+        try (FileChannel channel = open(bytes)) {
+            FileRegion sut = new FileRegion(channel, 30, 40);
+            // Act
+            byte[] read = IOUtils.toByteArray(sut);
+            // Assert
+            assertThat(read, is(Arrays.copyOfRange(bytes, 30, 70)));
+        }
+    }
+
+    @Test
+    public void regionsReadIndependently() throws IOException {
+        // Arrange
+        byte[] bytes = Fixtures.createBytes(100);
+        try (FileChannel channel = open(bytes)) {
+            FileRegion first = new FileRegion(channel, 0, 50);
+            FileRegion second = new FileRegion(channel, 50, 50);
+            // Act
+            int secondStart = second.read();
+            int firstStart = first.read();
+            // Assert
+            assertThat(firstStart, is(bytes[0] & 0xff));
+            assertThat(secondStart, is(bytes[50] & 0xff));
+            assertThat(channel.position(), is(0L));
+        }
+    }
+
+    @Test
+    public void skipStaysWithinRegion() throws IOException {
+        // Arrange
+        try (FileChannel channel = open(Fixtures.createBytes(100))) {
+            FileRegion sut = new FileRegion(channel, 10, 20);
+            // Act
+            long skipped = sut.skip(50);
+            int end = sut.read();
+            // Assert
+            assertThat(skipped, is(20L));
+            assertThat(end, is(-1));
+        }
+    }
+
+    @Test
+    public void endsEarlyWhenTheFileIsShorter() throws IOException {
+        // Arrange
+        try (FileChannel channel = open(Fixtures.createBytes(10))) {
+            FileRegion sut = new FileRegion(channel, 5, 20);
+            // Act
+            byte[] read = IOUtils.toByteArray(sut);
+            // Assert
+            assertThat(read.length, is(5));
+        }
+    }
+
+    @Test
+    public void readsLargeRegionThroughMapping() throws IOException {
+        // Arrange
+        int size = (int) FileRegion.MIN_MAPPED_SIZE * 3;
+        byte[] bytes = Fixtures.createBytes(size);
+        try (FileChannel channel = open(bytes)) {
+            FileRegion sut = new FileRegion(channel, 100, size - 200);
+            // Act
+            sut.skip(50);
+            byte[] read = IOUtils.toByteArray(sut);
+            // Assert
+            assertThat(read, is(Arrays.copyOfRange(bytes, 150, size - 100)));
+        }
+    }
+
+}
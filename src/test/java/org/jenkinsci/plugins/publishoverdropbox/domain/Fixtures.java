@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.BatchEntryResult;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.ErrorResponse;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FileMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.RelocationPath;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Test data and stand-ins shared by the tests of the domain package.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return content that differs from its neighbours at every offset, so misplaced bytes show
+     */
+    static byte[] createBytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 7);
+        }
+        return bytes;
+    }
+
+    /**
+     * Answers listing, copy and batch calls from an in-memory set of files instead of Dropbox.
+     */
+    static class StubDropbox extends DropboxV2 {
+
+        final Set<String> files = new HashSet<>();
+        final List<List<String>> batches = new ArrayList<>();
+        final List<String> copied = new ArrayList<>();
+        final List<String> deleted = new ArrayList<>();
+        // Failure tags to answer for a path, one per attempt
+        private final Map<String, List<String>> failing = new HashMap<>();
+        private final Set<String> failingBatches = new HashSet<>();
+
+        StubDropbox() {
+            super("token");
+        }
+
+        void fail(String path, String... tags) {
+            failing.put(path, new ArrayList<>(Arrays.asList(tags)));
+        }
+
+        /**
+         * Fails every batch that holds the path as a whole.
+         */
+        void failBatchOf(String path) {
+            failingBatches.add(path);
+        }
+
+        @Override
+        public List<FileMetadata> listFiles(String path) {
+            List<FileMetadata> children = new ArrayList<>();
+            for (String file : files) {
+                if (file.startsWith(path + "/")) {
+                    FileMetadata child = new FileMetadata();
+                    child.setName(file.substring(path.length() + 1));
+                    children.add(child);
+                }
+            }
+            return children;
+        }
+
+        @Override
+        public void copyFile(String fromPath, String toPath) throws RestException {
+            String failure = copy(fromPath, toPath);
+            if (failure != null) {
+                ErrorResponse error = new ErrorResponse();
+                error.setErrorSummary(failure + "/..");
+                throw new RestException("copy", new ResponseException(failure, 409, error, new IOException()));
+            }
+        }
+
+        @Override
+        public List<BatchEntryResult> copyBatch(List<RelocationPath> copies) {
+            List<BatchEntryResult> results = new ArrayList<>();
+            for (RelocationPath entry : copies) {
+                String failure = copy(entry.getFromPath(), entry.getToPath());
+                BatchEntryResult result = BatchEntryResult.success();
+                if (failure != null) {
+                    result = new BatchEntryResult();
+                    result.setTag("failure");
+                    result.setFailureTag("relocation_error/" + failure);
+                }
+                results.add(result);
+            }
+            return results;
+        }
+
+        private String copy(String fromPath, String toPath) {
+            copied.add(fromPath + " > " + toPath);
+            if (!files.contains(fromPath)) {
+                return "from_lookup/not_found";
+            }
+            if (files.contains(toPath)) {
+                return "to/conflict/file";
+            }
+            files.add(toPath);
+            return null;
+        }
+
+        @Override
+        public List<BatchEntryResult> createFolderBatch(List<String> paths) throws RestException {
+            return answerBatch(paths);
+        }
+
+        @Override
+        public List<BatchEntryResult> deleteBatch(List<String> paths) throws RestException {
+            List<BatchEntryResult> results = answerBatch(paths);
+            for (int i = 0; i < paths.size(); i++) {
+                if (results.get(i).isSuccess()) {
+                    deleted.add(paths.get(i));
+                    files.remove(paths.get(i));
+                }
+            }
+            return results;
+        }
+
+        private List<BatchEntryResult> answerBatch(List<String> paths) throws RestException {
+            batches.add(new ArrayList<>(paths));
+            for (String path : paths) {
+                if (failingBatches.contains(path)) {
+                    throw new RestException("Batch failed at " + path);
+                }
+            }
+            List<BatchEntryResult> results = new ArrayList<>();
+            for (String path : paths) {
+                results.add(answer(path));
+            }
+            return results;
+        }
+
+        private BatchEntryResult answer(String path) {
+            List<String> failures = failing.get(path);
+            if (failures == null || failures.isEmpty()) {
+                return BatchEntryResult.success();
+            }
+            BatchEntryResult result = new BatchEntryResult();
+            result.setTag("failure");
+            result.setFailureTag(failures.remove(0));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import com.google.gson.Gson;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderContent;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class FolderListingTest {
+
+    private final Gson gson = DropboxV2.createGson();
+
+    private FolderContent page(String cursor, String... names) {
+        StringBuilder json = new StringBuilder("{\"entries\":[");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\".tag\":\"file\",\"name\":\"").append(names[i]).append("\"}");
+        }
+        json.append("],\"cursor\":\"").append(cursor).append("\",\"has_more\":").append(!cursor.isEmpty()).append('}');
+        return gson.fromJson(json.toString(), FolderContent.class);
+    }
+
+    private static List<String> names(FolderListing sut) throws RestException {
+        List<String> names = new ArrayList<>();
+        while (sut.hasNext()) {
+            names.add(sut.next().getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void entriesOfAllPagesInOrder() throws RestException {
+        // Arrange
+        FolderListing sut = new FolderListing("/a", new FolderListing.PageSource() {
+            @Override
+            public FolderContent first() {
+                return page("1", "a", "b");
+            }
+
+            @Override
+            public FolderContent next(String cursor) {
+                return "1".equals(cursor) ? page("2") : page("", "c");
+            }
+        });
+        // Act
+        List<String> names = names(sut);
+        // Assert
+        assertThat(names, contains("a", "b", "c"));
+    }
+
+    @Test
+    public void skipsDeletedEntries() throws RestException {
+        // Arrange
+        FolderListing sut = new FolderListing("/a", new FolderListing.PageSource() {
+            @Override
+            public FolderContent first() {
+                return page("1", "a");
+            }
+
+            @Override
+            public FolderContent next(String cursor) {
+                return gson.fromJson("{\"entries\":[{\".tag\":\"deleted\",\"name\":\"a\"},"
+                        + "{\".tag\":\"file\",\"name\":\"b\"}],\"cursor\":\"\",\"has_more\":false}", FolderContent.class);
+            }
+        });
+        // Act
+        List<String> names = names(sut);
+        // Assert
+        assertThat(names, contains("a", "b"));
+    }
+
+    @Test
+    public void nextPageIsFetchedWhileCurrentIsConsumed() throws Exception {
+        // Arrange
+        CountDownLatch fetched = new CountDownLatch(1);
+        FolderListing sut = new FolderListing("/a", new FolderListing.PageSource() {
+            @Override
+            public FolderContent first() {
+                return page("1", "a", "b");
+            }
+
+            @Override
+            public FolderContent next(String cursor) {
+                fetched.countDown();
+                return page("", "c");
+            }
+        });
+        // Act
+        sut.next();
+        // Assert
+        assertThat(fetched.await(10, TimeUnit.SECONDS), is(true));
+        sut.close();
+    }
+
+    @Test(expected = RestException.class)
+    public void failedPageFails() throws RestException {
+        // Arrange
+        FolderListing sut = new FolderListing("/a", new FolderListing.PageSource() {
+            @Override
+            public FolderContent first() {
+                return page("1", "a");
+            }
+
+            @Override
+            public FolderContent next(String cursor) throws RestException {
+                throw new RestException("failed");
+            }
+        });
+        // Act
+        names(sut);
+    }
+}
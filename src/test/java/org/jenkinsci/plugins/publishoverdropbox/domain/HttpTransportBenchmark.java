@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FileMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Concurrent metadata requests and small uploads through the HTTP/1.1 connection pool compared to the JDK client
+ * behind {@link Http2Transport}, against a local stand-in for the Dropbox endpoints that answers after a fixed delay.
+ * <p>
+ * The stand-in only speaks HTTP/1.1, so both clients send HTTP/1.1 here. This compares their cost per request and
+ * their behaviour under concurrency, it does not measure HTTP/2 multiplexing. The JDK client needs Java 11 or later,
+ * on older JVMs both parameters measure the pool.
+ */
+@State(Scope.Benchmark)
+@Threads(16)
+// Without it the stand-in sends headers and body in separate packets and every request waits for a delayed ACK
+@Fork(jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class HttpTransportBenchmark {
+
+    private static final int RESPONSE_DELAY_MILLIS = 5;
+    private static final String METADATA = "{\".tag\":\"file\",\"name\":\"a.txt\",\"path_lower\":\"/a.txt\",\"size\":4096}";
+
+    @Param({"pool", "jdk"})
+    public String transportType;
+
+    private final byte[] upload = new byte[64 * 1024];
+    private final Gson gson = DropboxV2.createGson();
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpTransport transport;
+    private URL metadataUrl;
+    private URL uploadUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            IOUtils.skip(exchange.getRequestBody(), Long.MAX_VALUE);
+            try {
+                Thread.sleep(RESPONSE_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = METADATA.getBytes("UTF-8");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(response);
+            }
+        });
+        server.start();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        metadataUrl = new URL(base + "/2/files/get_metadata");
+        uploadUrl = new URL(base + "/2/files/upload");
+        HttpTransport pool = PooledHttpTransport.getInstance();
+        transport = "jdk".equals(transportType) ? Http2Transport.wrap(pool) : pool;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public FileMetadata metadata() throws IOException {
+        return new JsonObjectRequest.Builder<FileMetadata>()
+                .url(metadataUrl)
+                .gson(gson)
+                .method(JsonObjectRequest.Method.POST)
+                .upload("{\"path\":\"/a.txt\"}", "application/json")
+                .responseClass(FileMetadata.class)
+                .transport(transport)
+                .build()
+                .execute();
+    }
+
+    @Benchmark
+    public FileMetadata smallUpload() throws IOException {
+        return new JsonObjectRequest.Builder<FileMetadata>()
+                .url(uploadUrl)
+                .gson(gson)
+                .method(JsonObjectRequest.Method.POST)
+                .addHeader("Dropbox-API-Arg", "{\"path\":\"/a.txt\"}")
+                .upload(new ByteArrayInputStream(upload), "application/octet-stream", upload.length)
+                .responseClass(FileMetadata.class)
+                .transport(transport)
+                .build()
+                .execute();
+    }
+}
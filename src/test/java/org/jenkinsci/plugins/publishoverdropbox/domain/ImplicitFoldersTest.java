@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class ImplicitFoldersTest {
+
+    private final Fixtures.StubDropbox dropbox = new Fixtures.StubDropbox();
+
+    @Test
+    public void createsOnlyFoldersWithoutContent() {
+        // Arrange
+        ImplicitFolders sut = new ImplicitFolders(dropbox);
+        sut.enter("/Builds/");
+        sut.enter("/Builds/Docs");
+        sut.enter("/Builds/Docs/Empty");
+        sut.enter("/Builds/Bin");
+        sut.write("/builds/bin/app.jar");
+        sut.enter("/Builds/Logs");
+
+        // Act
+        List<String> failures = sut.createEmpty();
+
+        // Assert
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(dropbox.batches.size(), is(1));
+        assertThat(dropbox.batches.get(0), contains("/Builds/Docs/Empty", "/Builds/Logs"));
+    }
+
+    @Test
+    public void sendsNothingWhenAllFoldersHaveContent() {
+        // Arrange
+        ImplicitFolders sut = new ImplicitFolders(dropbox);
+        sut.enter("/Builds");
+        sut.write("/Builds/app.jar");
+
+        // Act
+        sut.createEmpty();
+
+        // Assert
+        assertThat(dropbox.batches.isEmpty(), is(true));
+    }
+
+    @Test
+    public void ignoresExistingFolders() {
+        // Arrange
+        ImplicitFolders sut = new ImplicitFolders(dropbox);
+        sut.enter("/existing");
+        sut.enter("/readonly");
+        dropbox.fail("/existing", "path/conflict/folder");
+        dropbox.fail("/readonly", "path/no_write_permission");
+
+        // Act
+        List<String> failures = sut.createEmpty();
+
+        // Assert
+        assertThat(failures.size(), is(1));
+    }
+
+    @Test
+    public void splitsLargeBatches() {
+        // Arrange
+        ImplicitFolders sut = new ImplicitFolders(dropbox);
+        for (int i = 0; i <= DropboxV2.MAX_BATCH_ENTRIES; i++) {
+            sut.enter("/folder" + i);
+        }
+
+        // Act
+        sut.createEmpty();
+
+        // Assert
+        assertThat(dropbox.batches.size(), is(2));
+        assertThat(dropbox.batches.get(1), contains("/folder" + DropboxV2.MAX_BATCH_ENTRIES));
+    }
+}
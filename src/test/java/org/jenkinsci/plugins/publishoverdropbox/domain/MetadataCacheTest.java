@@ -0,0 +1,146 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Metadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class MetadataCacheTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Metadata load(String path) {
+        loads.incrementAndGet();
+        FolderMetadata folder = new FolderMetadata();
+        folder.setPathLower(path.toLowerCase());
+        return folder;
+    }
+
+    @Test
+    public void reusesLookupWithinTtl() throws RestException {
+        // Arrange
+        MetadataCache sut = new MetadataCache(MINUTE, 10);
+        Metadata first = sut.get("account", "/Builds", () -> load("/Builds"));
+
+        // Act
+        Metadata second = sut.get("account", "/builds", () -> load("/builds"));
+
+        // Assert
+        assertThat(second, is(sameInstance(first)));
+        assertThat(loads.get(), is(1));
+    }
+
+    @Test
+    public void loadsAgainAfterTtl() throws RestException {
+        // Arrange
+        MetadataCache sut = new MetadataCache(1, 10);
+        sut.get("account", "/builds", () -> load("/builds"));
+
+        // Act
+        sut.get("account", "/builds", () -> load("/builds"));
+
+        // Assert
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws RestException {
+        // Arrange
+        MetadataCache sut = new MetadataCache(MINUTE, 2);
+        sut.get("account", "/a", () -> load("/a"));
+        sut.get("account", "/b", () -> load("/b"));
+        sut.get("account", "/a", () -> load("/a"));
+
+        // Act
+        sut.get("account", "/c", () -> load("/c"));
+        sut.get("account", "/a", () -> load("/a"));
+        sut.get("account", "/b", () -> load("/b"));
+
+        // Assert
+        assertThat(sut.size(), is(2));
+        assertThat(loads.get(), is(4));
+    }
+
+    @Test
+    public void invalidatesSubtree() throws RestException {
+        // Arrange
+        MetadataCache sut = new MetadataCache(MINUTE, 10);
+        sut.get("account", "/builds", () -> load("/builds"));
+        sut.get("account", "/builds/1", () -> load("/builds/1"));
+        sut.get("account", "/builds2", () -> load("/builds2"));
+
+        // Act
+        sut.invalidate("account", "/Builds");
+
+        // Assert
+        assertThat(sut.size(), is(1));
+    }
+
+    @Test
+    public void collapsesConcurrentLookups() throws Exception {
+        // Arrange
+        MetadataCache sut = new MetadataCache(MINUTE, 10);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Metadata> first = executor.submit(() -> sut.get("account", "/builds", () -> {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RestException(e);
+                }
+                return load("/builds");
+            }));
+            loading.await();
+
+            // Act
+            Future<Metadata> second = executor.submit(() -> sut.get("account", "/builds", () -> load("/builds")));
+            Thread.sleep(50);
+            release.countDown();
+
+            // Assert
+            assertThat(second.get(5, TimeUnit.SECONDS), is(sameInstance(first.get(5, TimeUnit.SECONDS))));
+            assertThat(loads.get(), is(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import jenkins.plugins.publish_over.BapPublisherException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+public class ParallelUploaderTest {
+
+    private ParallelUploader sut;
+
+    @Before
+    public void setUp() {
+        sut = new ParallelUploader(3);
+    }
+
+    @After
+    public void tearDown() {
+        sut.shutdown();
+    }
+
+    @Test
+    public void runsAllUploads() {
+        // Arrange
+        final AtomicInteger uploaded = new AtomicInteger();
+        for (int i = 0; i < 20; i++) {
+            sut.submit("file" + i, uploaded::incrementAndGet);
+        }
+        // Act
+        List<String> failures = sut.awaitCompletion();
+        // Assert
+        assertThat(failures.size(), is(0));
+        assertThat(uploaded.get(), is(20));
+    }
+
+    @Test
+    public void reportsFailurePerFile() {
+        // Arrange
+        sut.submit("/good.txt", () -> {
+        });
+        sut.submit("/bad.txt", () -> {
+            throw new IOException("broken");
+        });
+        // Act
+        List<String> failures = sut.awaitCompletion();
+        // Assert
+        assertThat(failures.size(), is(1));
+        assertThat(failures.get(0), containsString("/bad.txt"));
+        assertThat(failures.get(0), containsString("broken"));
+    }
+
+    @Test(expected = BapPublisherException.class)
+    public void stopsSubmittingAfterFailure() throws InterruptedException {
+        // Arrange
+        sut.submit("/bad.txt", () -> {
+            throw new IOException("broken");
+        });
+        Thread.sleep(200);
+        // Act
+        sut.submit("/next.txt", () -> {
+        });
+    }
+
+    @Test
+    public void submitWaitsWhileTwoUploadsPerWorkerArePending() throws InterruptedException {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 6; i++) {
+            sut.submit("file" + i, release::await);
+        }
+        Thread submitter = new Thread(() -> sut.submit("file6", () -> {
+        }));
+        // Act
+        submitter.start();
+        submitter.join(200);
+        boolean waited = submitter.isAlive();
+        release.countDown();
+        submitter.join(5000);
+        // Assert
+        assertThat(waited, is(true));
+        assertThat(submitter.isAlive(), is(false));
+        assertThat(sut.awaitCompletion().isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import com.google.gson.Gson;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderContent;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PruneFolderTest {
+
+    private final Gson gson = DropboxV2.createGson();
+
+    private static String file(String pathLower, String serverModified) {
+        return "{\".tag\":\"file\",\"path_lower\":\"" + pathLower + "\",\"server_modified\":\"" + serverModified + "\"}";
+    }
+
+    private static String folder(String pathLower) {
+        return "{\".tag\":\"folder\",\"path_lower\":\"" + pathLower + "\"}";
+    }
+
+    private FolderContent page(int number, boolean hasMore, String... entries) {
+        return gson.fromJson("{\"entries\":[" + String.join(",", entries) + "],\"cursor\":\"" + number
+                + "\",\"has_more\":" + hasMore + "}", FolderContent.class);
+    }
+
+    /**
+     * A listing that hands out the given pages in order.
+     */
+    private static FolderListing listing(FolderContent... pages) {
+        List<FolderContent> remaining = new ArrayList<>(Arrays.asList(pages));
+        return new FolderListing("/builds", new FolderListing.PageSource() {
+            @Override
+            public FolderContent first() {
+                return remaining.remove(0);
+            }
+
+            @Override
+            public FolderContent next(String cursor) {
+                return remaining.remove(0);
+            }
+        });
+    }
+
+    @Test
+    public void keepsNewestFileBelowEachEntry() throws RestException {
+        // Arrange
+        FolderListing listing = listing(page(1, false,
+                folder("/builds"),
+                folder("/builds/1"),
+                file("/builds/1/a.txt", "2020-01-01T00:00:00Z"),
+                folder("/builds/1/sub"),
+                file("/builds/1/sub/b.txt", "2020-03-01T00:00:00Z"),
+                file("/builds/1/sub/c.txt", "2020-02-01T00:00:00Z"),
+                file("/builds/top.txt", "2020-04-01T00:00:00Z")));
+        // Act
+        Map<String, String> newest = DropboxV2.findNewestModified("/Builds", listing);
+        // Assert
+        assertThat(newest.keySet(), contains("/builds/1", "/builds/top.txt"));
+        assertThat(newest.get("/builds/1"), is("2020-03-01T00:00:00Z"));
+        assertThat(newest.get("/builds/top.txt"), is("2020-04-01T00:00:00Z"));
+    }
+
+    @Test
+    public void entriesSpreadOverPagesAreCombined() throws RestException {
+        // Arrange
+        FolderListing listing = listing(
+                page(1, true,
+                        folder("/builds/1"),
+                        file("/builds/1/a.txt", "2020-01-01T00:00:00Z"),
+                        folder("/builds/2")),
+                page(2, true,
+                        file("/builds/2/b.txt", "2020-05-01T00:00:00Z"),
+                        file("/builds/1/deep/c.txt", "2020-06-01T00:00:00Z")),
+                page(3, false,
+                        file("/builds/1/d.txt", "2019-01-01T00:00:00Z"),
+                        folder("/builds/3")));
+        // Act
+        Map<String, String> newest = DropboxV2.findNewestModified("/builds", listing);
+        // Assert
+        assertThat(newest.keySet(), contains("/builds/1", "/builds/2", "/builds/3"));
+        assertThat(newest.get("/builds/1"), is("2020-06-01T00:00:00Z"));
+        assertThat(newest.get("/builds/2"), is("2020-05-01T00:00:00Z"));
+        assertThat(newest.get("/builds/3"), is(nullValue()));
+    }
+}
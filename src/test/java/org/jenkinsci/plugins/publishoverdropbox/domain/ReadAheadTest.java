@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ReadAheadTest {
+
+    private final ChunkBufferPool pool = new ChunkBufferPool(1024);
+
+    private static byte[] readAll(ReadAhead sut, int chunks) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < chunks; i++) {
+            ReadAhead.Chunk chunk = sut.next();
+            byte[] bytes = new byte[chunk.getSize()];
+            chunk.getBuffer().duplicate().get(bytes);
+            out.write(bytes);
+            sut.release(chunk);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void chunksCoverContentWithoutBudget() throws IOException {
+        // Arrange
+        byte[] bytes = Fixtures.createBytes(250);
+        try (ReadAhead sut = new ReadAhead(new ByteArrayInputStream(bytes), bytes.length, 100, 0, pool)) {
+            // Act
+            byte[] read = readAll(sut, 3);
+            // Assert
+            assertThat(read, is(bytes));
+        }
+    }
+
+    @Test
+    public void chunksCoverContentWithBudget() throws IOException {
+        // Arrange
+        byte[] bytes = Fixtures.createBytes(1050);
+        try (ReadAhead sut = new ReadAhead(new ByteArrayInputStream(bytes), bytes.length, 100, 300, pool)) {
+            // Act
+            byte[] read = readAll(sut, 11);
+            // Assert
+            assertThat(read, is(bytes));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shortContentFails() throws IOException {
+        // Arrange
+        byte[] bytes = Fixtures.createBytes(150);
+        try (ReadAhead sut = new ReadAhead(new ByteArrayInputStream(bytes), 300, 100, 200, pool)) {
+            // Act
+            readAll(sut, 3);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void budgetLargerThanPoolUsesOwnBuffers() throws IOException {
+        // Arrange
+        ChunkBufferPool small = new ChunkBufferPool(200);
+        byte[] bytes = Fixtures.createBytes(1050);
+        try (ReadAhead sut = new ReadAhead(new ByteArrayInputStream(bytes), bytes.length, 100, 500, small)) {
+            // Act
+            byte[] read = readAll(sut, 11);
+            // Assert
+            assertThat(read, is(bytes));
+            assertThat(small.getPeakBytes(), is(200L));
+        }
+    }
+
+    @Test
+    public void closeReturnsBuffersToPool() throws IOException {
+        // Arrange
+        byte[] bytes = Fixtures.createBytes(1000);
+        ReadAhead sut = new ReadAhead(new ByteArrayInputStream(bytes), bytes.length, 100, 0, pool);
+        sut.next();
+        // Act
+        sut.close();
+        // Assert
+        assertThat(pool.getInUseBytes(), is(0L));
+        assertThat(pool.getIdleBytes(), is(100L));
+    }
+
+    @Test
+    public void closeWaitsForReadInProgress() throws InterruptedException {
+        // Arrange
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream content = new InputStream() {
+            @Override
+            public int read() {
+                reading.countDown();
+                // A read that does not give up on interrupt, like one from a remote stream
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // Keep reading
+                    }
+                }
+                return 0;
+            }
+        };
+        ReadAhead sut = new ReadAhead(content, 100, 100, 100, pool);
+        reading.await();
+        Thread closer = new Thread(sut::close);
+        // Act
+        closer.start();
+        closer.join(200);
+        boolean waited = closer.isAlive();
+        release.countDown();
+        closer.join(5000);
+        // Assert
+        assertThat(waited, is(true));
+        assertThat(closer.isAlive(), is(false));
+    }
+}
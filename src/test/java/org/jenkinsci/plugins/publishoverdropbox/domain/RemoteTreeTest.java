@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import com.google.gson.Gson;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FileMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Metadata;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class RemoteTreeTest {
+
+    private static final String HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private final Gson gson = DropboxV2.createGson();
+    private RemoteTree sut;
+
+    private Metadata file(String pathLower, String name, long size) {
+        return gson.fromJson("{\".tag\":\"file\",\"name\":\"" + name + "\",\"path_lower\":\"" + pathLower
+                + "\",\"size\":" + size + ",\"server_modified\":\"2015-05-12T15:50:38Z\",\"content_hash\":\"" + HASH
+                + "\"}", Metadata.class);
+    }
+
+    private Metadata folder(String pathLower, String name) {
+        return gson.fromJson("{\".tag\":\"folder\",\"name\":\"" + name + "\",\"path_lower\":\"" + pathLower + "\"}",
+                Metadata.class);
+    }
+
+    @Before
+    public void setUp() {
+        sut = new RemoteTree();
+    }
+
+    @Test
+    public void fileIsFoundInAnyCase() {
+        // Arrange
+        sut.add(file("/builds/1/app.jar", "App.jar", 12));
+        // Act
+        int node = sut.find("/Builds/1/APP.jar");
+        // Assert
+        assertThat(sut.isFolder(node), is(false));
+        assertThat(sut.getSize(node), is(12L));
+        assertThat(sut.getContentHash(node), equalTo(HASH));
+        assertThat(sut.getPathLower(node), equalTo("/builds/1/app.jar"));
+    }
+
+    @Test
+    public void foldersLeadingToEntryAreCreated() {
+        // Arrange
+        sut.add(file("/builds/1/app.jar", "App.jar", 12));
+        // Act
+        int node = sut.find("/builds/1");
+        // Assert
+        assertThat(sut.isFolder(node), is(true));
+        assertThat(sut.getParent(node), is(sut.find("/builds")));
+        assertThat(sut.size(), is(4));
+    }
+
+    @Test
+    public void missingPathIsNotFound() {
+        // Arrange
+        sut.add(folder("/builds", "Builds"));
+        // Act
+        int node = sut.find("/builds/2");
+        // Assert
+        assertThat(node, is(RemoteTree.NOT_FOUND));
+    }
+
+    @Test
+    public void metadataViewOfFile() {
+        // Arrange
+        sut.add(file("/builds/1/app.jar", "App.jar", 12));
+        // Act
+        Metadata metadata = sut.getMetadata(sut.find("/builds/1/app.jar"));
+        // Assert
+        assertThat(metadata, instanceOf(FileMetadata.class));
+        assertThat(metadata.getName(), equalTo("App.jar"));
+        assertThat(metadata.getPathLower(), equalTo("/builds/1/app.jar"));
+        assertThat(((FileMetadata) metadata).getServerModified(), equalTo("2015-05-12T15:50:38Z"));
+        assertThat(((FileMetadata) metadata).getContentHash(), equalTo(HASH));
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.RestException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ReplaceWorkingFolderTest {
+
+    private static final String METADATA = "/2/files/get_metadata";
+    private static final String DELETE = "/2/files/delete";
+    private static final String CREATE_FOLDER = "/2/files/create_folder";
+    private static final String LIST_FOLDER = "/2/files/list_folder";
+    private static final String DELETE_BATCH = "/2/files/delete_batch";
+    private static final String FOLDER = "{\".tag\":\"folder\",\"name\":\"Builds\",\"id\":\"id:1\","
+            + "\"path_lower\":\"/builds\",\"path_display\":\"/Builds\"}";
+
+    private String deleteError;
+    private FakeTransport transport;
+    private DropboxV2 sut;
+
+    @Before
+    public void setUp() {
+        transport = new FakeTransport(request -> {
+            switch (request.getEndpoint()) {
+                case METADATA:
+                case CREATE_FOLDER:
+                    return FakeTransport.ok(FOLDER);
+                case DELETE:
+                    return deleteError == null ? FakeTransport.ok(FOLDER) : FakeTransport.conflict(deleteError);
+                case LIST_FOLDER:
+                    return FakeTransport.ok("{\"entries\":["
+                            + "{\".tag\":\"file\",\"name\":\"a.txt\",\"path_lower\":\"/builds/a.txt\"},"
+                            + "{\".tag\":\"folder\",\"name\":\"logs\",\"path_lower\":\"/builds/logs\"}],"
+                            + "\"cursor\":\"1\",\"has_more\":false}");
+                case DELETE_BATCH:
+                    return FakeTransport.ok("{\".tag\":\"complete\",\"entries\":[{\".tag\":\"success\"},{\".tag\":\"success\"}]}");
+                default:
+                    throw new AssertionError("Unexpected call to " + request.getEndpoint());
+            }
+        });
+        sut = new DropboxV2("token");
+        sut.transport = transport;
+        sut.setReplaceOnClean(true);
+    }
+
+    @Test
+    public void replacesFolderWithSingleDelete() throws RestException {
+        // Arrange
+        sut.changeWorkingDirectory("/Builds");
+
+        // Act
+        List<String> failures = sut.cleanWorkingFolder();
+
+        // Assert
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(transport.getRequests(DELETE).size(), is(1));
+        assertThat(transport.getRequests(DELETE).get(0).getArg().get("path").getAsString(), is("/Builds"));
+        assertThat(transport.getRequests(CREATE_FOLDER).size(), is(1));
+        assertThat(transport.getRequests(CREATE_FOLDER).get(0).getArg().get("path").getAsString(), is("/Builds"));
+        assertThat(transport.getRequests(LIST_FOLDER).isEmpty(), is(true));
+    }
+
+    @Test
+    public void deletesEntriesWhenFolderHasTooManyFiles() throws RestException {
+        // Arrange
+        deleteError = "{\"error_summary\":\"too_many_files/..\",\"error\":{\".tag\":\"too_many_files\"}}";
+        sut.changeWorkingDirectory("/Builds");
+
+        // Act
+        List<String> failures = sut.cleanWorkingFolder();
+
+        // Assert
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(transport.getRequests(CREATE_FOLDER).isEmpty(), is(true));
+        assertThat(transport.getRequests(LIST_FOLDER).size(), is(1));
+        assertThat(transport.getRequests(DELETE_BATCH).size(), is(1));
+        assertThat(transport.getRequests(DELETE_BATCH).get(0).getArg().getAsJsonArray("entries").size(), is(2));
+    }
+
+    @Test
+    public void leavesImplicitFolderToUploads() throws RestException {
+        // Arrange
+        sut.setImplicitFolders(true);
+        sut.changeWorkingDirectory("/Builds");
+
+        // Act
+        List<String> failures = sut.cleanWorkingFolder();
+
+        // Assert
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(transport.getRequests(DELETE).size(), is(1));
+        assertThat(transport.getRequests(CREATE_FOLDER).isEmpty(), is(true));
+    }
+
+    @Test(expected = RestException.class)
+    public void failsWhenReplaceIsRefused() throws RestException {
+        // Arrange
+        deleteError = "{\"error_summary\":\"path_write/no_write_permission/..\",\"error\":{\".tag\":\"path_write\"}}";
+        sut.changeWorkingDirectory("/Builds");
+
+        // Act
+        sut.cleanWorkingFolder();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.domain;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class UploadTuningTest {
+
+    private static final long MEGA_BYTE = 1024 * 1024;
+
+    private UploadTuning sut;
+
+    @Before
+    public void setUp() {
+        sut = new UploadTuning(64 * MEGA_BYTE);
+    }
+
+    @Test
+    public void startsWithSmallestChunks() {
+        // Act
+        long chunkSize = sut.getChunkSize();
+        long singleUploadLimit = sut.getSingleUploadLimit();
+        // Assert
+        assertThat(chunkSize, is(UploadTuning.MIN_CHUNK_SIZE));
+        assertThat(singleUploadLimit, is(UploadTuning.MIN_CHUNK_SIZE));
+    }
+
+    @Test
+    public void growsWithThroughput() {
+        // Arrange
+        sut.transferred(8 * MEGA_BYTE, TimeUnit.MILLISECONDS.toNanos(900), TimeUnit.MILLISECONDS.toNanos(100));
+        // Act
+        long chunkSize = sut.getChunkSize();
+        long singleUploadLimit = sut.getSingleUploadLimit();
+        // Assert
+        assertThat(chunkSize, is(32 * MEGA_BYTE));
+        assertThat(singleUploadLimit, is(UploadTuning.MAX_SINGLE_UPLOAD));
+    }
+
+    @Test
+    public void roundsChunkSizeToMultipleOfFourMegaByte() {
+        // Arrange
+        sut.setMaxChunkSize(30 * MEGA_BYTE);
+        sut.transferred(100 * MEGA_BYTE, TimeUnit.MILLISECONDS.toNanos(900), TimeUnit.MILLISECONDS.toNanos(100));
+        // Act
+        long chunkSize = sut.getChunkSize();
+        // Assert
+        assertThat(chunkSize, is(28 * MEGA_BYTE));
+    }
+
+    @Test
+    public void keepsSmallChunksOnSlowConnections() {
+        // Arrange
+        sut.transferred(4 * MEGA_BYTE, TimeUnit.SECONDS.toNanos(8), TimeUnit.MILLISECONDS.toNanos(50));
+        // Act
+        long chunkSize = sut.getChunkSize();
+        long singleUploadLimit = sut.getSingleUploadLimit();
+        // Assert
+        assertThat(chunkSize, is(UploadTuning.MIN_CHUNK_SIZE));
+        assertThat(singleUploadLimit, is(both(greaterThan(14 * MEGA_BYTE)).and(lessThan(15 * MEGA_BYTE))));
+    }
+}
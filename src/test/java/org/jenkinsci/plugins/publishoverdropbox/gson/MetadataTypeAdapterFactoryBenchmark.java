@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.jenkinsci.plugins.publishoverdropbox.domain.DropboxV2;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FileMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderContent;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Metadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Decoding a {@code list_folder} page of 2,000 entries with the streaming {@link MetadataTypeAdapterFactory} compared
+ * to the {@link RuntimeTypeAdapterFactory}, which builds a {@code JsonElement} tree of every entry first.
+ */
+@State(Scope.Thread)
+public class MetadataTypeAdapterFactoryBenchmark {
+
+    private static final int ENTRIES = 2000;
+
+    private final String page = createPage();
+    private final Gson streaming = DropboxV2.createGson();
+    private final Gson tree = new GsonBuilder()
+            .registerTypeAdapterFactory(RuntimeTypeAdapterFactory
+                    .of(Metadata.class, ".tag")
+                    .registerSubtype(FolderMetadata.class, "folder")
+                    .registerSubtype(FileMetadata.class, "file"))
+            .create();
+
+    private static String createPage() {
+        StringBuilder page = new StringBuilder("{\"entries\":[");
+        for (int i = 0; i < ENTRIES; i++) {
+            if (i > 0) {
+                page.append(',');
+            }
+            if (i % 10 == 0) {
+                page.append("{\".tag\":\"folder\",\"name\":\"build-").append(i)
+                        .append("\",\"id\":\"id:a4ayc_80_OEAAAAAAAA").append(i)
+                        .append("\",\"path_lower\":\"/jenkins/job/build-").append(i)
+                        .append("\",\"path_display\":\"/Jenkins/job/build-").append(i)
+                        .append("\",\"sharing_info\":{\"read_only\":false,\"parent_shared_folder_id\":\"84528192421\","
+                                + "\"traverse_only\":false,\"no_access\":false}}");
+            } else {
+                page.append("{\".tag\":\"file\",\"name\":\"artifact-").append(i)
+                        .append(".jar\",\"id\":\"id:a4ayc_80_OEAAAAAAAA").append(i)
+                        .append("\",\"client_modified\":\"2015-05-12T15:50:38Z\",\"server_modified\":\"2015-05-12T15:50:38Z\""
+                                + ",\"rev\":\"a1c10ce0dd78\",\"size\":").append(i * 1024L)
+                        .append(",\"path_lower\":\"/jenkins/job/build-").append(i / 10 * 10).append("/artifact-").append(i)
+                        .append(".jar\",\"path_display\":\"/Jenkins/job/build-").append(i / 10 * 10).append("/artifact-")
+                        .append(i).append(".jar\",\"sharing_info\":{\"read_only\":true,\"parent_shared_folder_id\":"
+                                + "\"84528192421\",\"modified_by\":\"dbid:AAH4f99T0taONIb-OurWxbNQ6ywGRopQngc\"},"
+                                + "\"is_downloadable\":true,\"has_explicit_shared_members\":false,"
+                                + "\"content_hash\":\"e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855\"}");
+            }
+        }
+        return page.append("],\"cursor\":\"ZtkX9_EHj3x7PMkVuFIhwKYXEpwpLwyxp9vMKomUhllil9q7eWiAu\",\"has_more\":false}")
+                .toString();
+    }
+
+    @Benchmark
+    public FolderContent streamingAdapter() {
+        return streaming.fromJson(page, FolderContent.class);
+    }
+
+    @Benchmark
+    public FolderContent elementTree() {
+        return tree.fromJson(page, FolderContent.class);
+    }
+}
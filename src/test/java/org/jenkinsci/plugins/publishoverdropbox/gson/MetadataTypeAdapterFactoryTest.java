@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.jenkinsci.plugins.publishoverdropbox.domain.DropboxV2;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FileMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderContent;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.FolderMetadata;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Metadata;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MetadataTypeAdapterFactoryTest {
+
+    private static final String FILE = "{\"name\":\"a.txt\",\"id\":\"id:1\",\"size\":12,\"unknown\":{\"nested\":[1,{\"x\":null}]},"
+            + "\"path_lower\":\"/dir/a.txt\",\"path_display\":\"/Dir/a.txt\",\"server_modified\":\"2015-05-12T15:50:38Z\","
+            + "\"content_hash\":\"abc\",\".tag\":\"file\"}";
+    private static final String FOLDER = "{\".tag\":\"folder\",\"name\":\"dir\",\"path_lower\":\"/dir\",\"sharing_info\":null}";
+
+    private Gson gson;
+
+    @Before
+    public void setUp() {
+        gson = DropboxV2.createGson();
+    }
+
+    @Test
+    public void tagAfterFieldsBindsFile() {
+        // Act
+        Metadata model = gson.fromJson(FILE, Metadata.class);
+        // Assert
+        assertThat(model, instanceOf(FileMetadata.class));
+        FileMetadata file = (FileMetadata) model;
+        assertThat(file.getName(), equalTo("a.txt"));
+        assertThat(file.getId(), equalTo("id:1"));
+        assertThat(file.getSize(), is(12L));
+        assertThat(file.getPathLower(), equalTo("/dir/a.txt"));
+        assertThat(file.getPathDisplay(), equalTo("/Dir/a.txt"));
+        assertThat(file.getServerModified(), equalTo("2015-05-12T15:50:38Z"));
+        assertThat(file.getContentHash(), equalTo("abc"));
+    }
+
+    @Test
+    public void folderInPageSkipsUnknownFields() {
+        // Act
+        FolderContent model = gson.fromJson("{\"entries\":[" + FOLDER + "," + FILE + "],\"cursor\":\"c\",\"has_more\":true}",
+                FolderContent.class);
+        // Assert
+        assertThat(model.getEntries().get(0), instanceOf(FolderMetadata.class));
+        assertThat(model.getEntries().get(0).getPathLower(), equalTo("/dir"));
+        assertThat(model.getEntries().get(1), instanceOf(FileMetadata.class));
+        assertThat(model.getCursor(), equalTo("c"));
+        assertThat(model.hasMore(), is(true));
+    }
+
+    @Test
+    public void typedResponseWithoutTag() {
+        // Act
+        FileMetadata model = gson.fromJson("{\"name\":\"a.txt\",\"size\":3}", FileMetadata.class);
+        // Assert
+        assertThat(model.getTag(), equalTo("file"));
+        assertThat(model.getSize(), is(3L));
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void missingTagFails() {
+        // Act
+        gson.fromJson("{\"name\":\"a.txt\"}", Metadata.class);
+    }
+
+    @Test(expected = JsonParseException.class)
+    public void unknownTagFails() {
+        // Act
+        gson.fromJson("{\".tag\":\"unknown\",\"name\":\"a.txt\"}", Metadata.class);
+    }
+
+    @Test
+    public void deletedEntryReadsAsNull() {
+        // Act
+        Metadata metadata = gson.fromJson("{\".tag\":\"deleted\",\"name\":\"a.txt\"}", Metadata.class);
+        // Assert
+        assertThat(metadata, is(nullValue()));
+    }
+
+    @Test
+    public void writtenMetadataReadsBack() {
+        // Arrange
+        Metadata model = gson.fromJson(FILE, Metadata.class);
+        // Act
+        Metadata copy = gson.fromJson(gson.toJson(model, Metadata.class), Metadata.class);
+        // Assert
+        assertThat(copy, instanceOf(FileMetadata.class));
+        assertThat(copy.getPathDisplay(), equalTo("/Dir/a.txt"));
+        assertThat(((FileMetadata) copy).getContentHash(), equalTo("abc"));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.gson;
+
+import com.google.gson.Gson;
+import org.jenkinsci.plugins.publishoverdropbox.domain.DropboxV2;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.CreateFolderBatch;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.CreateFolderRequest;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.DeleteBatch;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.DeleteRequest;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.ListFolderRequest;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.MetadataRequest;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.RelocationBatch;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.RelocationPath;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionAppend;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionFinish;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionFinishBatch;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionStart;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.UploadRequest;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class RequestTypeAdapterFactoryTest {
+
+    private final Gson gson = DropboxV2.createGson();
+    private final Gson reflective = new Gson();
+
+    private void assertSameAsReflective(Object request) {
+        assertThat(gson.toJson(request), equalTo(reflective.toJson(request)));
+    }
+
+    @Test
+    public void listFolderRequest() {
+        // Arrange
+        ListFolderRequest request = new ListFolderRequest();
+        request.setPath("/a");
+        request.setRecursive(true);
+        // Act & Assert
+        assertSameAsReflective(request);
+        request.setLimit(2000);
+        assertSameAsReflective(request);
+    }
+
+    @Test
+    public void metadataAndFolderRequests() {
+        // Arrange
+        MetadataRequest metadata = new MetadataRequest();
+        metadata.setPath("/a \"quoted\"");
+        CreateFolderRequest folder = new CreateFolderRequest();
+        CreateFolderBatch folders = new CreateFolderBatch();
+        folders.getPaths().add("/a");
+        folders.getPaths().add("/b");
+        // Act & Assert
+        assertSameAsReflective(metadata);
+        assertSameAsReflective(folder);
+        assertSameAsReflective(folders);
+    }
+
+    @Test
+    public void sessionRequests() {
+        // Arrange
+        SessionStart start = new SessionStart();
+        start.setSessionType(SessionStart.SessionType.CONCURRENT);
+        SessionAppend append = new SessionAppend();
+        append.cursor.setSessionId("s1");
+        append.cursor.setOffset(4096);
+        append.setClose(true);
+        SessionFinish finish = new SessionFinish();
+        finish.cursor.setSessionId("s1");
+        finish.cursor.setOffset(8192);
+        finish.commit.setPath("/a.bin");
+        SessionFinishBatch batch = new SessionFinishBatch();
+        batch.getEntries().add(finish);
+        batch.getEntries().add(new SessionFinish());
+        // Act & Assert
+        assertSameAsReflective(start);
+        assertSameAsReflective(append);
+        assertSameAsReflective(finish);
+        assertSameAsReflective(batch);
+    }
+
+    @Test
+    public void uploadAndCopyRequests() {
+        // Arrange
+        UploadRequest upload = new UploadRequest();
+        upload.setPath("/b.bin");
+        RelocationBatch copies = new RelocationBatch();
+        copies.getEntries().add(new RelocationPath("/x", "/y"));
+        DeleteBatch deletes = new DeleteBatch();
+        DeleteRequest delete = new DeleteRequest();
+        delete.setPath("/old");
+        deletes.getEntries().add(delete);
+        // Act & Assert
+        assertSameAsReflective(upload);
+        assertSameAsReflective(copies);
+        assertSameAsReflective(deletes);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.gson;
+
+import com.google.gson.Gson;
+import org.jenkinsci.plugins.publishoverdropbox.domain.DropboxV2;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.AsyncJobStatus;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.BatchEntryResult;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.ErrorResponse;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Session;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class ResponseTypeAdapterFactoryTest {
+
+    private final Gson gson = DropboxV2.createGson();
+
+    @Test
+    public void nestedIncorrectOffset() {
+        // Act
+        ErrorResponse model = gson.fromJson("{\"error_summary\":\"lookup_failed/incorrect_offset/..\",\"error\":"
+                + "{\".tag\":\"lookup_failed\",\"lookup_failed\":{\".tag\":\"incorrect_offset\",\"correct_offset\":42}},"
+                + "\"user_message\":{\"locale\":\"en\",\"text\":\"Try again\"}}", ErrorResponse.class);
+        // Assert
+        assertThat(model.getError().getTag(), equalTo("lookup_failed"));
+        assertThat(model.getError().getCorrectOffset(), is(42L));
+        assertThat(model.toString(), equalTo("caused by {error = lookup_failed, errorSummary = "
+                + "'lookup_failed/incorrect_offset/..', userMessage = 'Try again'}"));
+    }
+
+    @Test
+    public void batchResult() {
+        // Act
+        AsyncJobStatus model = gson.fromJson("{\".tag\":\"complete\",\"entries\":[{\".tag\":\"success\","
+                + "\"path_lower\":\"/a\",\"size\":3},{\".tag\":\"failure\",\"failure\":{\".tag\":\"too_many_write_operations\"}},"
+                + "{\".tag\":\"failure\",\"failure\":\"too_many_files\"}]}", AsyncJobStatus.class);
+        // Assert
+        assertThat(model.isComplete(), is(true));
+        BatchEntryResult success = model.getEntries().get(0);
+        assertThat(success.isSuccess(), is(true));
+        assertThat(success.getPathLower(), equalTo("/a"));
+        assertThat(model.getEntries().get(1).getFailureTag(), equalTo("too_many_write_operations"));
+        assertThat(model.getEntries().get(2).getFailureTag(), equalTo("too_many_files"));
+    }
+
+    @Test
+    public void batchResultWithNestedFailure() {
+        // Act
+        AsyncJobStatus model = gson.fromJson("{\".tag\":\"complete\",\"entries\":[{\".tag\":\"failure\",\"failure\":"
+                + "{\".tag\":\"path\",\"path\":{\"conflict\":{\".tag\":\"folder\"},\".tag\":\"conflict\"}}},"
+                + "{\".tag\":\"success\",\"metadata\":{\"name\":\"b\",\"path_lower\":\"/b\"}}]}", AsyncJobStatus.class);
+        // Assert
+        assertThat(model.getEntries().get(0).getFailureTag(), equalTo("path/conflict/folder"));
+        assertThat(model.getEntries().get(1).isSuccess(), is(true));
+    }
+
+    @Test
+    public void writtenResponseReadsBack() {
+        // Arrange
+        Session session = new Session();
+        session.setSessionId("s1");
+        // Act
+        Session model = gson.fromJson(gson.toJson(session), Session.class);
+        // Assert
+        assertThat(model.getSessionId(), equalTo("s1"));
+    }
+}
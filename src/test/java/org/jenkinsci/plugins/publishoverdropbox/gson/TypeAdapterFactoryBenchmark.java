@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright (C) 2017 by René de Groot
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.publishoverdropbox.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.jenkinsci.plugins.publishoverdropbox.domain.DropboxV2;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.AsyncJobStatus;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.Session;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionFinish;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.SessionFinishBatch;
+import org.jenkinsci.plugins.publishoverdropbox.domain.model.requests.UploadRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The hand-written request and response adapters compared to Gson's reflective adapters, on the header of every
+ * upload, a batch commit, its result and the first calls of a new {@link Gson} instance.
+ */
+@State(Scope.Thread)
+public class TypeAdapterFactoryBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"handWritten", "reflective"})
+    public String adapters;
+
+    private final UploadRequest upload = new UploadRequest();
+    private final SessionFinishBatch batch = new SessionFinishBatch();
+    private String batchResult;
+    private Gson gson;
+
+    private Gson createGson() {
+        if ("handWritten".equals(adapters)) {
+            return DropboxV2.createGson();
+        }
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new MetadataTypeAdapterFactory())
+                .create();
+    }
+
+    @Setup
+    public void setUp() {
+        gson = createGson();
+        upload.setPath("/jenkins/job/build-1/artifact.jar");
+        StringBuilder result = new StringBuilder("{\".tag\":\"complete\",\"entries\":[");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            SessionFinish finish = new SessionFinish();
+            finish.cursor.setSessionId("pid_upload_session:ABIAAAAAAAAAAAAAAAAAAAAA" + i);
+            finish.cursor.setOffset(i * 1024L);
+            finish.commit.setPath("/jenkins/job/build-1/artifact-" + i + ".jar");
+            batch.getEntries().add(finish);
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append("{\".tag\":\"success\",\"name\":\"artifact-").append(i)
+                    .append(".jar\",\"path_lower\":\"/jenkins/job/build-1/artifact-").append(i)
+                    .append(".jar\",\"id\":\"id:a4ayc_80_OEAAAAAAAAAXw\",\"size\":").append(i * 1024L)
+                    .append(",\"content_hash\":\"e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855\"}");
+        }
+        batchResult = result.append("]}").toString();
+    }
+
+    @Benchmark
+    public String uploadHeader() {
+        return gson.toJson(upload);
+    }
+
+    @Benchmark
+    public String batchCommit() {
+        return gson.toJson(batch);
+    }
+
+    @Benchmark
+    public AsyncJobStatus batchResult() {
+        return gson.fromJson(batchResult, AsyncJobStatus.class);
+    }
+
+    /**
+     * A new instance builds its adapters on the first use of every type.
+     */
+    @Benchmark
+    public Session firstCalls() {
+        Gson fresh = createGson();
+        fresh.toJson(upload);
+        return fresh.fromJson("{\"session_id\":\"pid_upload_session:ABIAAAAAAAAAAAAAAAAAAAAA\"}", Session.class);
+    }
+}